@@ -8,6 +8,7 @@
  * Key Features:
  * - Automatic PageFactory initialization for @FindBy annotations
  * - Pre-configured WebDriverWait for element synchronization
+ * - Adaptive, history-driven timeouts for named element waits (WaitTelemetry)
  * - Actions class for advanced user interactions (hover, drag-drop, etc.)
  * - Integrated utility classes for common operations
  * - Allure reporting integration for test documentation
@@ -25,10 +26,9 @@ package org.veeva.utilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.PageFactory;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.time.Duration;
-
 public abstract class BaseClass {
 
     // Core WebDriver instance for browser interactions
@@ -52,7 +52,7 @@ public abstract class BaseClass {
      * This constructor performs the following initialization:
      * 1. Sets up the WebDriver instance
      * 2. Initializes PageFactory for @FindBy annotations
-     * 3. Configures WebDriverWait with 10-second timeout
+     * 3. Configures WebDriverWait with the default timeout (wait.timeoutSeconds, 10 s)
      * 4. Creates Actions instance for advanced interactions
      * 5. Initializes utility classes for common operations
      * 
@@ -66,9 +66,9 @@ public abstract class BaseClass {
         // This automatically initializes all WebElement fields annotated with @FindBy
         PageFactory.initElements(driver, this);
         
-        // Set up WebDriverWait with 10-second timeout for explicit waits
+        // Set up WebDriverWait with the default timeout for explicit waits
         // This helps in waiting for elements to be visible, clickable, etc.
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        this.wait = new WebDriverWait(driver, WaitTelemetry.defaultTimeout());
         
         // Initialize Actions class for complex user interactions
         // Used for hover, drag-drop, right-click, keyboard combinations
@@ -82,5 +82,36 @@ public abstract class BaseClass {
         // Enables screenshot capture, file attachments, and test reporting
         this.allureUtil = new AllureReportUtils();
     }
+
+    /**
+     * Waits for a condition on one of this page's fields with an adaptive timeout
+     * 
+     * The time the wait takes is recorded under "PageClass.fieldName" and the
+     * timeout is derived from earlier runs (see WaitTelemetry): slow elements get
+     * more time, but the wait is never shorter than wait.timeoutSeconds.
+     * 
+     * @param fieldName Name of the @FindBy field the condition is about
+     * @param condition Condition to wait for, e.g. EventDrivenConditions.visibilityOf(field)
+     * @param <T> Condition result type
+     * @return Condition result
+     */
+    protected <T> T waitForField(String fieldName, ExpectedCondition<T> condition) {
+        return WaitTelemetry.until(driver, getClass().getSimpleName() + "." + fieldName, condition);
+    }
+
+    /**
+     * Waits for a field that may legitimately not show up (pop-up, cookie banner)
+     * 
+     * Like waitForField(), but the timeout may be shortened: an element that has
+     * not appeared in recent runs fails fast, with an occasional full-length probe.
+     * 
+     * @param fieldName Name of the @FindBy field the condition is about
+     * @param condition Condition to wait for, e.g. EventDrivenConditions.visibilityOf(field)
+     * @param <T> Condition result type
+     * @return Condition result
+     */
+    protected <T> T waitForOptionalField(String fieldName, ExpectedCondition<T> condition) {
+        return WaitTelemetry.untilOptional(driver, getClass().getSimpleName() + "." + fieldName, condition);
+    }
 }
 
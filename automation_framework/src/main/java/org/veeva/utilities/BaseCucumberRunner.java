@@ -0,0 +1,57 @@
+/**
+ * BaseCucumberRunner - Shared Set-Up of the Module Cucumber/TestNG Runners
+ *
+ * Every product module runs its features through a TestNG runner that takes the
+ * browser and tag filter from testng.xml and pre-warms browsers for the
+ * scenarios. This class holds that set-up once, so the runners of the modules
+ * only carry their @CucumberOptions.
+ *
+ * Set-Up Order:
+ * 1. @BeforeTest: browser and tag filter become system properties before
+ *    AbstractTestNGCucumberTests.setUpClass parses the features, and the first
+ *    browser starts launching while they are parsed
+ * 2. @BeforeClass (after setUpClass): the warm-up is topped up to one browser
+ *    per parallel scenario, never more than there are scenarios
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import org.testng.ITestContext;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Parameters;
+
+public abstract class BaseCucumberRunner extends AbstractTestNGCucumberTests {
+
+    /**
+     * Applies the testng.xml parameters and starts launching the first browser
+     *
+     * @param browser Browser to run on (chrome, firefox, ...)
+     * @param tags Cucumber tag expression selecting the scenarios
+     */
+    @BeforeTest(alwaysRun = true)
+    @Parameters({"browser", "cucumber.filter.tags"})
+    public void setUpBrowser(String browser, String tags) {
+        // Runs before AbstractTestNGCucumberTests.setUpClass parses the features, so the tag
+        // filter applies to that parse and DriverFactory picks up the browser
+        System.setProperty("browser", browser);
+        System.setProperty("cucumber.filter.tags", tags);
+        // Every run needs at least one browser: launch it while Cucumber parses the features
+        DriverFactory.prewarm(1);
+    }
+
+    /**
+     * Tops the warm-up up to the number of browsers the parsed scenarios can use
+     *
+     * @param context TestNG context carrying the suite's data-provider-thread-count
+     */
+    @BeforeClass(alwaysRun = true)
+    public void prewarmForScenarios(ITestContext context) {
+        // Runs after setUpClass, so the scenarios are already parsed and filtered
+        DriverFactory.prewarm(Math.min(context.getSuite().getXmlSuite().getDataProviderThreadCount(), scenarios().length));
+    }
+}
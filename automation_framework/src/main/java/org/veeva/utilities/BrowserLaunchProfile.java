@@ -0,0 +1,180 @@
+/**
+ * BrowserLaunchProfile - Named Browser Launch Configurations
+ *
+ * This enum defines the sets of browser switches and preferences DriverFactory
+ * applies on top of its base options (anti-detection, window size, user agent,
+ * headless mode). Lighter profiles switch off browser features a test run never
+ * needs - extensions, background networking, component updates, sync, first-run
+ * UI - so browsers start faster and use less memory.
+ *
+ * Profiles:
+ * - STANDARD: base options only (previous behaviour)
+ * - LEAN: STANDARD plus disabled extensions, background networking, component
+ *   updates, sync, translate and other background features
+ * - MINIMAL: LEAN plus fewer renderer processes and, when
+ *   driver.chrome.headlessShellBinary points at chrome-headless-shell, the
+ *   lightweight headless shell instead of full Chrome
+ *
+ * Configuration:
+ * - driver.launchProfile: standard, lean or minimal (default standard)
+ * - driver.chrome.headlessShellBinary: optional path to chrome-headless-shell
+ *
+ * LaunchProfileBenchmark measures startup latency and memory per profile.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public enum BrowserLaunchProfile {
+
+    STANDARD(Collections.emptyList(), Collections.emptyMap(), false),
+
+    LEAN(Arrays.asList(
+            "--disable-extensions",
+            "--disable-background-networking",
+            "--disable-component-update",
+            "--disable-default-apps",
+            "--disable-sync",
+            "--disable-client-side-phishing-detection",
+            "--disable-domain-reliability",
+            "--disable-breakpad",
+            "--disable-hang-monitor",
+            "--disable-dev-shm-usage",
+            "--no-first-run",
+            "--no-default-browser-check",
+            "--no-pings",
+            "--metrics-recording-only",
+            "--mute-audio",
+            "--password-store=basic",
+            "--use-mock-keychain",
+            "--disable-features=Translate,OptimizationHints,MediaRouter,InterestFeedContentSuggestions,"
+                    + "CalculateNativeWinOcclusion,AutofillServerCommunication,CertificateTransparencyComponentUpdater,"
+                    + "DialMediaRouteProvider,GlobalMediaControls,PrivacySandboxSettings4"),
+            leanFirefoxPreferences(), false),
+
+    MINIMAL(concat(LEAN.chromeArguments, Arrays.asList(
+            "--renderer-process-limit=2",
+            "--disable-site-isolation-trials",
+            "--disable-renderer-accessibility",
+            "--disable-software-rasterizer")),
+            minimalFirefoxPreferences(), true);
+
+    // Switches added to ChromeOptions after the base options
+    private final List<String> chromeArguments;
+
+    // Preferences added to FirefoxOptions after the base options
+    private final Map<String, Object> firefoxPreferences;
+
+    // Whether the profile launches chrome-headless-shell when one is configured
+    private final boolean preferHeadlessShell;
+
+    BrowserLaunchProfile(List<String> chromeArguments, Map<String, Object> firefoxPreferences,
+                         boolean preferHeadlessShell) {
+        this.chromeArguments = chromeArguments;
+        this.firefoxPreferences = firefoxPreferences;
+        this.preferHeadlessShell = preferHeadlessShell;
+    }
+
+    /**
+     * Reads the profile selected in config.properties (or -Ddriver.launchProfile)
+     *
+     * @return Configured profile, STANDARD if none is set
+     * @throws IllegalArgumentException if the name does not match a profile
+     */
+    public static BrowserLaunchProfile configured() {
+        return fromName(ConfigReader.getProperty("driver.launchProfile", "standard"));
+    }
+
+    /**
+     * @param name Profile name, case-insensitive (e.g. "lean")
+     * @return Matching profile
+     * @throws IllegalArgumentException if the name does not match a profile
+     */
+    public static BrowserLaunchProfile fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown launch profile '" + name + "', expected one of "
+                    + Arrays.toString(values()), e);
+        }
+    }
+
+    /**
+     * Adds this profile's switches to Chrome options that already carry the base settings
+     *
+     * @param options ChromeOptions built by DriverFactory
+     */
+    public void applyTo(ChromeOptions options) {
+        options.addArguments(chromeArguments);
+        String headlessShell = ConfigReader.getProperty("driver.chrome.headlessShellBinary", "");
+        if (preferHeadlessShell && !headlessShell.isEmpty()) {
+            // chrome-headless-shell is always headless and skips the full browser UI stack
+            options.setBinary(headlessShell);
+        }
+    }
+
+    /**
+     * Adds this profile's preferences to Firefox options that already carry the base settings
+     *
+     * @param options FirefoxOptions built by DriverFactory
+     */
+    public void applyTo(FirefoxOptions options) {
+        for (Map.Entry<String, Object> preference : firefoxPreferences.entrySet()) {
+            options.addPreference(preference.getKey(), preference.getValue());
+        }
+    }
+
+    private static Map<String, Object> leanFirefoxPreferences() {
+        Map<String, Object> preferences = new LinkedHashMap<>();
+        // No update checks, telemetry or add-on traffic during the run
+        preferences.put("app.update.auto", false);
+        preferences.put("app.update.enabled", false);
+        preferences.put("extensions.update.enabled", false);
+        preferences.put("extensions.getAddons.cache.enabled", false);
+        preferences.put("datareporting.healthreport.uploadEnabled", false);
+        preferences.put("datareporting.policy.dataSubmissionEnabled", false);
+        preferences.put("toolkit.telemetry.enabled", false);
+        preferences.put("toolkit.telemetry.unified", false);
+        preferences.put("browser.ping-centre.telemetry", false);
+        // No first-run pages, default browser prompts or background safe-browsing downloads
+        preferences.put("browser.shell.checkDefaultBrowser", false);
+        preferences.put("browser.startup.homepage_override.mstone", "ignore");
+        preferences.put("browser.aboutwelcome.enabled", false);
+        preferences.put("browser.safebrowsing.malware.enabled", false);
+        preferences.put("browser.safebrowsing.phishing.enabled", false);
+        preferences.put("browser.safebrowsing.downloads.enabled", false);
+        preferences.put("network.prefetch-next", false);
+        preferences.put("network.dns.disablePrefetch", true);
+        preferences.put("media.autoplay.default", 5);
+        return Collections.unmodifiableMap(preferences);
+    }
+
+    private static Map<String, Object> minimalFirefoxPreferences() {
+        Map<String, Object> preferences = new LinkedHashMap<>(leanFirefoxPreferences());
+        // Fewer content processes trade isolation for memory, which is fine for test pages
+        preferences.put("dom.ipc.processCount", 2);
+        preferences.put("fission.autostart", false);
+        preferences.put("browser.sessionhistory.max_total_viewers", 0);
+        preferences.put("browser.cache.memory.capacity", 16384);
+        return Collections.unmodifiableMap(preferences);
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> combined = new ArrayList<>(first);
+        combined.addAll(second);
+        return Collections.unmodifiableList(combined);
+    }
+}
@@ -0,0 +1,501 @@
+/**
+ * BrowserProcessRegistry - Tracking and Reaping of Browser/Driver Processes
+ *
+ * This class records every browser session started by DriverFactory together
+ * with its local process IDs and the thread that currently owns it. A periodic
+ * reaper and a JVM shutdown hook use that record to kill browsers that would
+ * otherwise outlive the test run: sessions whose owning thread died without
+ * quitting them, browsers that survived quit(), and any chrome/chromedriver/
+ * firefox/geckodriver process still attached to the JVM when it exits.
+ *
+ * Key Features:
+ * - Browser and driver PID lookup for local Chrome, Edge and Firefox sessions
+ * - Ownership tracking (scenario thread, or the session pool while idle)
+ * - Periodic reaper for orphaned sessions and processes that survived quit()
+ * - Shutdown hook that kills every remaining browser/driver descendant process
+ * - ThreadLocal binding tracker used to detect per-thread state that was never cleared
+ * - Process and memory (RSS) snapshots used by SoakTestRunner
+ *
+ * Configuration:
+ * - driver.reaper.enabled: master switch for the periodic reaper (default true)
+ * - driver.reaper.intervalSeconds: delay between reaper passes (default 30)
+ * - driver.reaper.graceSeconds: time a quit browser gets to exit before it is killed (default 10)
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class BrowserProcessRegistry {
+
+    // Executable names of the processes this framework launches
+    private static final String[] BROWSER_PROCESS_NAMES = {
+            "chromedriver", "geckodriver", "msedgedriver", "chrome", "chromium", "firefox", "msedge"
+    };
+
+    // Sessions started in this JVM, keyed by the WebDriver handed out by DriverFactory
+    private static final Map<WebDriver, TrackedSession> sessions = new ConcurrentHashMap<>();
+
+    // Threads currently holding a value in a named ThreadLocal (e.g. "DriverFactory.driver")
+    private static final Map<String, Set<Thread>> threadLocalBindings = new ConcurrentHashMap<>();
+
+    // Number of sessions/processes killed by the reaper since start-up
+    private static final AtomicInteger reapedCount = new AtomicInteger();
+
+    private static volatile ScheduledExecutorService reaper;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(BrowserProcessRegistry::killRemainingProcesses,
+                "browser-process-reaper-shutdown"));
+    }
+
+    /**
+     * Everything known about one browser session
+     */
+    private static final class TrackedSession {
+        private final String browserName;
+        private final Long browserPid;
+        private final Long driverPid;
+        private volatile WeakReference<Thread> owner;
+        private volatile long closedAt;
+
+        private TrackedSession(String browserName, Long browserPid, Long driverPid) {
+            this.browserName = browserName;
+            this.browserPid = browserPid;
+            this.driverPid = driverPid;
+        }
+
+        private Thread ownerThread() {
+            WeakReference<Thread> reference = owner;
+            return reference == null ? null : reference.get();
+        }
+    }
+
+    /**
+     * Records a newly started session and the processes behind it
+     *
+     * @param handle WebDriver handed out to callers (possibly a decorated wrapper)
+     * @param original Underlying driver whose capabilities identify the processes
+     */
+    public static void register(WebDriver handle, WebDriver original) {
+        Optional<ProcessHandle> browser = findBrowserProcess(original);
+        Long browserPid = browser.map(ProcessHandle::pid).orElse(null);
+        Long driverPid = browser.flatMap(BrowserProcessRegistry::dedicatedDriverProcess)
+                .map(ProcessHandle::pid)
+                .orElse(null);
+        String browserName = original instanceof HasCapabilities
+                ? ((HasCapabilities) original).getCapabilities().getBrowserName()
+                : "unknown";
+
+        if (browserPid == null && !GridCapacityScheduler.isRemoteMode()) {
+            // Without a PID crash kills, orphan reaping and memory sampling silently do nothing
+            System.err.println("WARNING: no local browser process found for the " + browserName
+                    + " session - it cannot be killed, reaped or measured");
+        }
+
+        TrackedSession session = new TrackedSession(browserName, browserPid, driverPid);
+        session.owner = new WeakReference<>(Thread.currentThread());
+        sessions.put(handle, session);
+        startReaper();
+    }
+
+    /**
+     * Marks the current thread as the owner of a session (e.g. after a pool lease)
+     *
+     * @param driver Registered WebDriver
+     */
+    public static void claim(WebDriver driver) {
+        TrackedSession session = driver == null ? null : sessions.get(driver);
+        if (session != null) {
+            session.owner = new WeakReference<>(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Hands ownership of a session to the session pool (no thread owns idle sessions)
+     *
+     * @param driver Registered WebDriver
+     */
+    public static void disown(WebDriver driver) {
+        TrackedSession session = driver == null ? null : sessions.get(driver);
+        if (session != null) {
+            session.owner = null;
+        }
+    }
+
+    /**
+     * Records that a session has been quit
+     *
+     * The entry is kept until its processes have exited; the reaper kills them
+     * if they are still alive after driver.reaper.graceSeconds.
+     *
+     * @param driver Registered WebDriver that was just quit
+     */
+    public static void unregister(WebDriver driver) {
+        TrackedSession session = driver == null ? null : sessions.get(driver);
+        if (session != null && session.closedAt == 0) {
+            session.closedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Kills the browser process tree behind a driver together with its driver process
+     *
+     * @param original Underlying (undecorated) driver of a local session
+     */
+    public static void killProcesses(WebDriver original) {
+        findBrowserProcess(original).ifPresent(browser -> killTree(browser.pid(),
+                dedicatedDriverProcess(browser).map(ProcessHandle::pid).orElse(null)));
+    }
+
+    /**
+     * Finds the chromedriver/geckodriver that launched a browser, unless it is a
+     * shared service that other sessions still use
+     */
+    private static Optional<ProcessHandle> dedicatedDriverProcess(ProcessHandle browser) {
+        return browser.parent()
+                .filter(parent -> commandOf(parent).contains("driver"))
+                .filter(parent -> !SharedDriverServices.isSharedServiceProcess(parent));
+    }
+
+    /**
+     * Records that the current thread stored a value in a tracked ThreadLocal
+     *
+     * @param name Name of the ThreadLocal (e.g. "Hooks.wait")
+     */
+    public static void bindThreadLocal(String name) {
+        threadLocalBindings.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+    }
+
+    /**
+     * Records that the current thread removed its value from a tracked ThreadLocal
+     *
+     * @param name Name of the ThreadLocal (e.g. "Hooks.wait")
+     */
+    public static void unbindThreadLocal(String name) {
+        Set<Thread> threads = threadLocalBindings.get(name);
+        if (threads != null) {
+            threads.remove(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Lists ThreadLocal values that are still set, per ThreadLocal name
+     *
+     * Called between scenarios every entry is a leak: the scenario finished but
+     * its thread still references a driver or wait.
+     *
+     * @return Number of threads still bound, per tracked ThreadLocal
+     */
+    public static Map<String, Integer> getThreadLocalBindings() {
+        Map<String, Integer> bindings = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<Thread>> entry : threadLocalBindings.entrySet()) {
+            bindings.put(entry.getKey(), entry.getValue().size());
+        }
+        return bindings;
+    }
+
+    /**
+     * @return Number of registered sessions that have not been quit yet
+     */
+    public static int openSessionCount() {
+        return (int) sessions.values().stream().filter(session -> session.closedAt == 0).count();
+    }
+
+    /**
+     * @return Number of sessions and leftover processes killed by the reaper so far
+     */
+    public static int reapedCount() {
+        return reapedCount.get();
+    }
+
+    /**
+     * @return Live chrome/chromedriver/firefox/geckodriver/edge processes started from this JVM
+     */
+    public static List<ProcessHandle> browserProcesses() {
+        return ProcessHandle.current().descendants()
+                .filter(ProcessHandle::isAlive)
+                .filter(BrowserProcessRegistry::isBrowserProcess)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sums the resident memory of this JVM and every browser process it started
+     *
+     * Reads /proc/&lt;pid&gt;/status, so the figure is only available on Linux.
+     *
+     * @return Resident set size in KB, or -1 if it cannot be determined
+     */
+    public static long residentMemoryKb() {
+        long jvm = residentMemoryKb(ProcessHandle.current().pid());
+        if (jvm < 0) {
+            return -1;
+        }
+        long total = jvm;
+        for (ProcessHandle process : ProcessHandle.current().descendants().collect(Collectors.toList())) {
+            total += Math.max(0, residentMemoryKb(process.pid()));
+        }
+        return total;
+    }
+
+    /**
+     * Sums the resident memory of one session's driver, browser and browser child processes
+     *
+     * @param driver Registered WebDriver
+     * @return Resident set size in KB, or -1 if the session has no known local processes
+     */
+    public static long sessionResidentMemoryKb(WebDriver driver) {
+        TrackedSession session = driver == null ? null : sessions.get(driver);
+        if (session == null || session.browserPid == null) {
+            return -1;
+        }
+        List<Long> pids = new ArrayList<>();
+        if (session.driverPid != null) {
+            pids.add(session.driverPid);
+        }
+        pids.add(session.browserPid);
+        ProcessHandle.of(session.browserPid).ifPresent(browser -> browser.descendants().forEach(child -> pids.add(child.pid())));
+
+        long total = 0;
+        for (long pid : pids) {
+            total += Math.max(0, residentMemoryKb(pid));
+        }
+        return total;
+    }
+
+    /**
+     * Runs one reaper pass immediately
+     *
+     * - Sessions whose owning thread terminated without quitting them are killed
+     *   and dropped from the session pool
+     * - Quit sessions whose processes outlived driver.reaper.graceSeconds are killed
+     * - Fully exited sessions are forgotten
+     */
+    public static void reap() {
+        long graceMillis = ConfigReader.getIntProperty("driver.reaper.graceSeconds", 10) * 1000L;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<WebDriver, TrackedSession> entry : sessions.entrySet()) {
+            TrackedSession session = entry.getValue();
+            if (session.closedAt == 0) {
+                Thread owner = session.ownerThread();
+                boolean ownerDied = session.owner != null && (owner == null || !owner.isAlive());
+                if (ownerDied) {
+                    System.err.println("Reaping " + session.browserName + " session abandoned by a terminated thread");
+                    killTree(session.browserPid, session.driverPid);
+                    reapedCount.incrementAndGet();
+                    abandon(entry.getKey());
+                }
+            } else if (isAlive(session.browserPid) || isAlive(session.driverPid)) {
+                if (now - session.closedAt > graceMillis) {
+                    System.err.println("Reaping " + session.browserName + " processes that survived quit()");
+                    killTree(session.browserPid, session.driverPid);
+                    reapedCount.incrementAndGet();
+                    sessions.remove(entry.getKey());
+                }
+            } else {
+                sessions.remove(entry.getKey());
+            }
+        }
+
+        // Bindings held by threads that no longer exist can never be cleared
+        for (Set<Thread> threads : threadLocalBindings.values()) {
+            threads.removeIf(thread -> !thread.isAlive());
+        }
+    }
+
+    private static void abandon(WebDriver driver) {
+        unregister(driver);
+        // Frees the pool's capacity permit; quit fails fast now that the processes are gone
+        if (BrowserSessionPool.isEnabled()) {
+            BrowserSessionPool.getInstance().discard(driver);
+        } else {
+            try {
+                driver.quit();
+            } catch (Exception ignored) {
+                // Session died with its processes
+            }
+        }
+    }
+
+    private static void startReaper() {
+        if (reaper != null || !ConfigReader.getBooleanProperty("driver.reaper.enabled", true)) {
+            return;
+        }
+        synchronized (BrowserProcessRegistry.class) {
+            if (reaper == null) {
+                int interval = Math.max(1, ConfigReader.getIntProperty("driver.reaper.intervalSeconds", 30));
+                reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "browser-process-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                reaper.scheduleWithFixedDelay(() -> {
+                    try {
+                        reap();
+                    } catch (Exception e) {
+                        System.err.println("Browser process reaper failed: " + e.getMessage());
+                    }
+                }, interval, interval, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Shutdown hook: gives pooled sessions a moment to quit, then kills whatever is left
+     */
+    private static void killRemainingProcesses() {
+        long deadline = System.currentTimeMillis()
+                + ConfigReader.getIntProperty("driver.reaper.graceSeconds", 10) * 1000L;
+        while (!browserProcesses().isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (ProcessHandle process : browserProcesses()) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Finds the local browser process behind a session
+     *
+     * Firefox reports its PID in the moz:processID capability. Chrome and Edge
+     * report the profile directory chromedriver created for the session
+     * (chrome.userDataDir / msedge.userDataDir, or userDataDir in the options),
+     * which is matched against the --user-data-dir flag of the browser's command
+     * line. The DevTools port is no use here: chromedriver starts the browser
+     * with --remote-debugging-port=0 and reads the real port from a file.
+     * Remote (grid) sessions have no local process.
+     *
+     * @param driver Original (undecorated) driver
+     * @return Root browser process, if it runs on this machine
+     */
+    static Optional<ProcessHandle> findBrowserProcess(WebDriver driver) {
+        if (!(driver instanceof HasCapabilities)) {
+            return Optional.empty();
+        }
+        Capabilities capabilities = ((HasCapabilities) driver).getCapabilities();
+
+        Object firefoxPid = capabilities.getCapability("moz:processID");
+        if (firefoxPid instanceof Number) {
+            return ProcessHandle.of(((Number) firefoxPid).longValue());
+        }
+
+        String userDataDir = userDataDir(capabilities);
+        if (userDataDir == null) {
+            return Optional.empty();
+        }
+        String flag = "--user-data-dir=" + userDataDir;
+        // The root browser is the process with the flag whose parent (the driver) does not have it
+        return ProcessHandle.current().descendants()
+                .filter(process -> hasFlag(commandOf(process), flag))
+                .filter(process -> process.parent().map(parent -> !hasFlag(commandOf(parent), flag)).orElse(true))
+                .findFirst();
+    }
+
+    /**
+     * Profile directory of a Chrome or Edge session, from the capabilities the driver returned
+     */
+    private static String userDataDir(Capabilities capabilities) {
+        for (String name : new String[]{"chrome", "msedge", "goog:chromeOptions", "ms:edgeOptions"}) {
+            Object value = capabilities.getCapability(name);
+            if (value instanceof Map) {
+                Object directory = ((Map<?, ?>) value).get("userDataDir");
+                if (directory != null && !String.valueOf(directory).isEmpty()) {
+                    return String.valueOf(directory);
+                }
+            }
+        }
+        return null;
+    }
+
+    // A flag followed by the end of the command line or the next argument, so /tmp/a does not match /tmp/ab
+    private static boolean hasFlag(String commandLine, String flag) {
+        int index = commandLine.indexOf(flag);
+        while (index >= 0) {
+            int end = index + flag.length();
+            if (end == commandLine.length() || Character.isWhitespace(commandLine.charAt(end))) {
+                return true;
+            }
+            index = commandLine.indexOf(flag, end);
+        }
+        return false;
+    }
+
+    private static void killTree(Long browserPid, Long driverPid) {
+        List<ProcessHandle> victims = new ArrayList<>();
+        // Stop the driver first so it cannot relaunch or hold on to the browser
+        if (driverPid != null) {
+            ProcessHandle.of(driverPid).ifPresent(victims::add);
+        }
+        if (browserPid != null) {
+            ProcessHandle.of(browserPid).ifPresent(browser -> {
+                victims.add(browser);
+                browser.descendants().forEach(victims::add);
+            });
+        }
+        for (ProcessHandle process : victims) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static boolean isAlive(Long pid) {
+        return pid != null && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    private static boolean isBrowserProcess(ProcessHandle process) {
+        String executable = process.info().command().orElse("").toLowerCase(Locale.ROOT);
+        String name = Paths.get(executable.isEmpty() ? "-" : executable).getFileName().toString();
+        for (String browserName : BROWSER_PROCESS_NAMES) {
+            if (name.startsWith(browserName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String commandOf(ProcessHandle process) {
+        ProcessHandle.Info info = process.info();
+        return info.commandLine().orElse(info.command().orElse(""));
+    }
+
+    private static long residentMemoryKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process exited while being read
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,508 @@
+/**
+ * BrowserSessionPool - Bounded Pool of Warm WebDriver Sessions
+ *
+ * This class keeps a bounded set of live browser sessions that are leased to
+ * scenarios and handed back afterwards, so a scenario no longer pays for a full
+ * browser process launch before its first step. Sessions are reset between
+ * scenarios so that state from one scenario never leaks into the next.
+ *
+ * Key Features:
+ * - Bounded capacity (idle, leased and launching sessions never exceed driver.pool.maxSize)
+ * - Thread-safe lease/release for parallel scenario execution
+ * - Health check on every lease (dead sessions are evicted and replaced)
+ * - Session reset on release (cookies, storage, extra tabs, about:blank)
+ * - Eviction after driver.pool.maxReuse leases or driver.pool.maxAgeMinutes
+ * - JVM shutdown hook that quits every remaining session
+ * - Asynchronous pre-warming of browsers at suite start, with timing summary
+ *
+ * Configuration (config.properties or -D system properties):
+ * - driver.pool.enabled: true to lease sessions from the pool (default true)
+ * - driver.pool.maxSize: maximum number of live sessions (default 4)
+ * - driver.pool.maxReuse: leases per session before it is recycled (default 20)
+ * - driver.pool.maxAgeMinutes: maximum lifetime of a session (default 30)
+ * - driver.pool.leaseTimeoutSeconds: how long a lease waits for capacity (default 120)
+ *
+ * Design Pattern: Object Pool + Singleton
+ * Thread Safety: Yes (Semaphore for capacity, concurrent collections for state)
+ *
+ * Every live browser holds one capacity permit from the moment its launch starts
+ * until it is quit: pre-warm launches take theirs up front, an idle session's
+ * permit passes to the lease that takes it, and a release keeps it with the
+ * session if the browser goes back to the idle queue.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class BrowserSessionPool {
+
+    // Lazily created singleton shared by every scenario thread in the JVM
+    private static volatile BrowserSessionPool instance;
+
+    // Idle sessions ready to be leased (most recently returned first)
+    private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+
+    // Sessions currently leased to a scenario, keyed by the WebDriver handed out
+    private final Map<WebDriver, PooledSession> leased = new ConcurrentHashMap<>();
+
+    // One permit per live session (idle, leased or launching), bounding them to maxSize
+    private final Semaphore capacity;
+
+    // Factory used to launch a brand new browser when no idle session is usable
+    private final Supplier<WebDriver> driverSupplier;
+
+    // Number of background launches started by prewarm() that have not finished yet
+    private final AtomicInteger pendingWarmups = new AtomicInteger();
+
+    // Leases currently waiting for an idle session or a permit
+    private final AtomicInteger waitingLeases = new AtomicInteger();
+
+    // Timings collected during pre-warming, reported once per JVM
+    private final Queue<Long> warmupLaunchMillis = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> warmLeaseWaitMillis = new ConcurrentLinkedQueue<>();
+    private final AtomicLong warmupStartedAt = new AtomicLong();
+    private final AtomicLong warmupFinishedAt = new AtomicLong();
+
+    private final int maxSize;
+    private final int maxReuse;
+    private final long maxAgeMillis;
+    private final long leaseTimeoutSeconds;
+
+    /**
+     * Holder for a pooled WebDriver and its bookkeeping data
+     */
+    private static class PooledSession {
+        private final WebDriver driver;
+        private final String browserName;
+        private final long createdAt = System.currentTimeMillis();
+        private final boolean prewarmed;
+        private int leaseCount;
+
+        private PooledSession(WebDriver driver, String browserName, boolean prewarmed) {
+            this.driver = driver;
+            this.browserName = browserName;
+            this.prewarmed = prewarmed;
+        }
+    }
+
+    /**
+     * Creates a pool that launches new browsers through the given supplier
+     *
+     * @param driverSupplier Factory that launches a fresh WebDriver session
+     */
+    BrowserSessionPool(Supplier<WebDriver> driverSupplier) {
+        this.driverSupplier = driverSupplier;
+        this.maxSize = Math.max(1, ConfigReader.getIntProperty("driver.pool.maxSize", 4));
+        this.maxReuse = Math.max(1, ConfigReader.getIntProperty("driver.pool.maxReuse", 20));
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(ConfigReader.getIntProperty("driver.pool.maxAgeMinutes", 30));
+        this.leaseTimeoutSeconds = ConfigReader.getIntProperty("driver.pool.leaseTimeoutSeconds", 120);
+        this.capacity = new Semaphore(maxSize, true);
+
+        // Quit every remaining browser when the test JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "browser-session-pool-shutdown"));
+    }
+
+    /**
+     * Returns the JVM wide pool, creating it on first use
+     *
+     * @return Shared BrowserSessionPool instance backed by DriverFactory
+     */
+    public static BrowserSessionPool getInstance() {
+        if (instance == null) {
+            synchronized (BrowserSessionPool.class) {
+                if (instance == null) {
+                    instance = new BrowserSessionPool(DriverFactory::createDriver);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether scenarios should lease sessions from the pool
+     *
+     * @return true unless driver.pool.enabled is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("driver.pool.enabled", true);
+    }
+
+    /**
+     * Leases a healthy browser session for the calling scenario
+     *
+     * Idle sessions are health checked and evicted if they are dead, too old or
+     * have been reused too often. A new browser is launched only when no idle
+     * session is usable and capacity allows it.
+     *
+     * @return A WebDriver that is exclusively owned by the caller until release
+     * @throws RuntimeException if no capacity frees up within the lease timeout
+     */
+    public WebDriver lease() {
+        String browserName = currentBrowserName();
+        long leaseStartedAt = System.currentTimeMillis();
+        PooledSession session = awaitSessionOrPermit(browserName);
+
+        // Nothing reusable - launch a brand new browser for this lease on the permit just taken
+        if (session == null) {
+            try {
+                WebDriver driver = driverSupplier.get();
+                if (driver == null) {
+                    throw new RuntimeException("Browser '" + browserName + "' could not be started for the session pool");
+                }
+                session = new PooledSession(driver, browserName, false);
+            } catch (RuntimeException e) {
+                // Give the capacity back if the lease could not be completed
+                capacity.release();
+                throw e;
+            }
+        } else if (session.prewarmed && session.leaseCount == 0) {
+            // First use of a pre-warmed browser - remember how long the scenario had to wait for it
+            warmLeaseWaitMillis.add(System.currentTimeMillis() - leaseStartedAt);
+        }
+
+        session.leaseCount++;
+        leased.put(session.driver, session);
+        return session.driver;
+    }
+
+    /**
+     * Launches browsers in the background so the first scenarios find them ready
+     *
+     * Launches run concurrently and each holds a capacity permit, so they never
+     * push the number of live sessions past driver.pool.maxSize; only as many
+     * browsers as there are free permits are launched. Leases that arrive while
+     * launches are still in flight wait for a pre-warmed browser instead of
+     * starting another one, for at most driver.pool.leaseTimeoutSeconds.
+     *
+     * Calls add up: browsers that are idle, leased or still launching count toward
+     * the target, so a later call with a better estimate only tops the pool up.
+     *
+     * @param count Number of browsers the suite is expected to use concurrently
+     */
+    public void prewarm(int count) {
+        int toLaunch = Math.min(count, maxSize) - idle.size() - leased.size() - pendingWarmups.get();
+        if (toLaunch <= 0) {
+            return;
+        }
+        int permits = 0;
+        while (permits < toLaunch && capacity.tryAcquire()) {
+            permits++;
+        }
+        if (permits == 0) {
+            return;
+        }
+        toLaunch = permits;
+        String browserName = currentBrowserName();
+        warmupStartedAt.compareAndSet(0, System.currentTimeMillis());
+        pendingWarmups.addAndGet(toLaunch);
+
+        ExecutorService launcher = Executors.newFixedThreadPool(toLaunch, runnable -> {
+            Thread thread = new Thread(runnable, "browser-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < toLaunch; i++) {
+            launcher.submit(() -> {
+                long launchStartedAt = System.currentTimeMillis();
+                boolean delivered = false;
+                try {
+                    WebDriver driver = driverSupplier.get();
+                    if (driver != null) {
+                        warmupLaunchMillis.add(System.currentTimeMillis() - launchStartedAt);
+                        // The launcher thread ends after this task - the pool owns the idle browser
+                        BrowserProcessRegistry.disown(driver);
+                        // The idle session keeps this launch's permit
+                        idle.offerLast(new PooledSession(driver, browserName, true));
+                        delivered = true;
+                    }
+                } catch (RuntimeException e) {
+                    // Leases will launch their own browser and report the failure to the scenario
+                    System.err.println("Browser pre-warm launch failed: " + e.getMessage());
+                } finally {
+                    if (!delivered) {
+                        capacity.release();
+                    }
+                    // The last launch to finish marks the end of the warm-up phase
+                    if (pendingWarmups.decrementAndGet() == 0) {
+                        warmupFinishedAt.set(System.currentTimeMillis());
+                    }
+                }
+            });
+        }
+        launcher.shutdown();
+    }
+
+    /**
+     * Summarises the pre-warm phase for the test report
+     *
+     * Sequential launch cost is the sum of every background launch, i.e. the
+     * startup time scenarios would otherwise have paid in their first step.
+     * Saved latency is that cost minus the time scenarios still spent waiting
+     * for a pre-warmed browser to become ready.
+     *
+     * @return Human readable summary, or null if prewarm() was never called
+     */
+    public String getPrewarmSummary() {
+        if (warmupStartedAt.get() == 0) {
+            return null;
+        }
+        long launchTotal = 0;
+        long launchMax = 0;
+        for (long millis : warmupLaunchMillis) {
+            launchTotal += millis;
+            launchMax = Math.max(launchMax, millis);
+        }
+        long waitTotal = 0;
+        for (long millis : warmLeaseWaitMillis) {
+            waitTotal += millis;
+        }
+        long finishedAt = warmupFinishedAt.get();
+        String wallClock = finishedAt == 0 ? "still running" : (finishedAt - warmupStartedAt.get()) + " ms";
+
+        return "Browsers pre-warmed: " + warmupLaunchMillis.size() + "\n"
+                + "Warm-up wall clock: " + wallClock + "\n"
+                + "Slowest launch: " + launchMax + " ms\n"
+                + "Individual launches: " + warmupLaunchMillis + " ms\n"
+                + "Sequential launch cost: " + launchTotal + " ms\n"
+                + "Scenario wait for pre-warmed browsers: " + waitTotal + " ms " + warmLeaseWaitMillis + "\n"
+                + "Estimated startup latency saved: " + Math.max(0, launchTotal - waitTotal) + " ms";
+    }
+
+    /**
+     * Returns a leased session to the pool after resetting its state
+     *
+     * If the reset fails, or the session has reached its reuse/age limit, the
+     * browser is quit instead of being made available to the next scenario. A
+     * session returned to the idle queue keeps its capacity permit.
+     *
+     * @param driver WebDriver previously obtained from {@link #lease()}
+     */
+    public void release(WebDriver driver) {
+        PooledSession session = leased.remove(driver);
+        if (session == null) {
+            // Not a pooled session (or already released) - just quit it
+            quietlyQuit(driver);
+            return;
+        }
+        boolean keptIdle = false;
+        try {
+            if (isReusable(session, session.browserName) && resetSession(driver)) {
+                // Idle sessions belong to the pool, not to the thread that released them
+                BrowserProcessRegistry.disown(driver);
+                idle.offerFirst(session);
+                keptIdle = true;
+            } else {
+                quietlyQuit(driver);
+            }
+        } finally {
+            if (!keptIdle) {
+                capacity.release();
+            }
+        }
+    }
+
+    /**
+     * Removes a leased session from the pool and quits the browser
+     *
+     * Used when a scenario knows its session must not be reused (for example
+     * after a browser crash or an explicit DriverFactory.quitDriver() call).
+     *
+     * @param driver WebDriver previously obtained from {@link #lease()}
+     */
+    public void discard(WebDriver driver) {
+        PooledSession session = leased.remove(driver);
+        quietlyQuit(driver);
+        if (session != null) {
+            capacity.release();
+        }
+    }
+
+    /**
+     * Quits every idle and leased session; called from the JVM shutdown hook
+     */
+    public void shutdown() {
+        List<PooledSession> sessions = new ArrayList<>(idle);
+        idle.clear();
+        sessions.addAll(leased.values());
+        leased.clear();
+        for (PooledSession session : sessions) {
+            quietlyQuit(session.driver);
+        }
+    }
+
+    /**
+     * @return Number of idle sessions currently waiting in the pool
+     */
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * @return Number of sessions currently leased to scenarios
+     */
+    public int leasedCount() {
+        return leased.size();
+    }
+
+    /**
+     * @return Snapshot of the WebDriver instances currently leased out
+     */
+    public List<WebDriver> leasedDrivers() {
+        return Collections.unmodifiableList(new ArrayList<>(leased.keySet()));
+    }
+
+    /**
+     * Takes the first healthy idle session, or a permit to launch a new browser
+     *
+     * An idle session already holds a permit, which passes to the lease. While
+     * pre-warm launches are in flight, as many leases as there are launches wait
+     * for those browsers instead of starting more; other leases take a permit as
+     * soon as one is free. Both waits are bounded by driver.pool.leaseTimeoutSeconds,
+     * after which the lease launches its own browser only if a permit is free.
+     *
+     * @return Reusable idle session, or null if the caller now holds a permit and must launch a browser
+     * @throws RuntimeException if neither frees up within the lease timeout
+     */
+    private PooledSession awaitSessionOrPermit(String browserName) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(leaseTimeoutSeconds);
+        waitingLeases.incrementAndGet();
+        try {
+            while (true) {
+                PooledSession session = idle.pollFirst();
+                if (session != null) {
+                    if (isReusable(session, browserName) && isHealthy(session.driver)) {
+                        return session;
+                    }
+                    // Evicting the session frees its permit
+                    quietlyQuit(session.driver);
+                    capacity.release();
+                    continue;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    if (capacity.tryAcquire()) {
+                        return null;
+                    }
+                    throw new RuntimeException("Timed out after " + leaseTimeoutSeconds
+                            + "s waiting for a free browser session (driver.pool.maxSize=" + maxSize + ")");
+                }
+                long slice = Math.min(200, remaining);
+                if (waitingLeases.get() <= pendingWarmups.get()) {
+                    // A background launch will deliver a browser shortly - wait for it
+                    session = idle.pollFirst(slice, TimeUnit.MILLISECONDS);
+                    if (session != null) {
+                        // Checked at the top of the loop like any other idle session
+                        idle.offerFirst(session);
+                    }
+                } else if (capacity.tryAcquire(slice, TimeUnit.MILLISECONDS)) {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a browser session", e);
+        } finally {
+            waitingLeases.decrementAndGet();
+        }
+    }
+
+    private boolean isReusable(PooledSession session, String browserName) {
+        // Sessions launched for another browser type cannot serve this lease
+        boolean sameBrowser = session.browserName.equalsIgnoreCase(browserName);
+        boolean withinReuseLimit = session.leaseCount < maxReuse;
+        boolean withinAgeLimit = System.currentTimeMillis() - session.createdAt < maxAgeMillis;
+        return sameBrowser && withinReuseLimit && withinAgeLimit;
+    }
+
+    private boolean isHealthy(WebDriver driver) {
+        try {
+            // A cheap round-trip proves both the driver server and the browser respond
+            driver.getWindowHandles();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Clears per-scenario state so the next lease starts from a blank browser
+     *
+     * @param driver Session to reset
+     * @return true if the session was reset successfully and can be reused
+     */
+    private boolean resetSession(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            String keepHandle = handles.get(0);
+
+            // Clear web storage for every open tab's origin, closing all but the first tab
+            for (String handle : handles) {
+                driver.switchTo().window(handle);
+                clearWebStorage(driver);
+                if (!handle.equals(keepHandle)) {
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(keepHandle);
+
+            // Chromium can wipe cookies for every domain in one call, others only for the current one
+            if (driver instanceof HasCdp) {
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+            }
+            driver.manage().deleteAllCookies();
+
+            driver.get("about:blank");
+            return true;
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void clearWebStorage(WebDriver driver) {
+        try {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        } catch (Exception ignored) {
+            // Pages like about:blank or crashed tabs have no accessible storage
+        }
+    }
+
+    private static String currentBrowserName() {
+        String browser = System.getProperty("browser");
+        return browser != null ? browser : ConfigReader.getProperty("browser", "chrome");
+    }
+
+    private static void quietlyQuit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception ignored) {
+            // Session is already gone - nothing left to clean up
+        } finally {
+            // Lets the reaper kill the processes if they outlive the quit
+            BrowserProcessRegistry.unregister(driver);
+        }
+    }
+}
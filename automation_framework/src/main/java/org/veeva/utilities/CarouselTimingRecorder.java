@@ -0,0 +1,200 @@
+/**
+ * CarouselTimingRecorder - In-Browser Timing of Carousel Slide Transitions
+ *
+ * Measuring how long each carousel slide stays active by polling every slide's
+ * aria-selected attribute from the test costs one WebDriver round-trip per slide
+ * per poll and is only as precise as the polling loop. This class instead installs
+ * a small recorder in the page: a MutationObserver on the slides' aria-selected
+ * attribute stamps every slide change with performance.now(). The test waits in
+ * the page until every slide has been shown once from start to finish and then
+ * reads the whole timeline with a single call.
+ *
+ * Key Features:
+ * - Millisecond (or better) timing taken inside the browser
+ * - A handful of WebDriver commands per measurement, however long the cycle
+ * - The slide active when recording starts is ignored (its start was not seen)
+ * - Slide titles collected together with the timeline
+ *
+ * Configuration:
+ * - carousel.timeoutSeconds: longest time to wait for a full cycle (default 120)
+ *
+ * Slides are expected to mark the active one with aria-selected="true", as
+ * role="tab" carousel controls do.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CarouselTimingRecorder {
+
+    // Longest single in-page wait, well inside WebDriver's 30 s script timeout
+    private static final long WAIT_SLICE_MILLIS = 20_000;
+
+    // Starts recording: one event per change of the selected slide, the first one
+    // marking the slide that was already active
+    private static final String START_SCRIPT =
+            "var slides = arguments[0];"
+            + "if (window.__carouselRecorder) { window.__carouselRecorder.observer.disconnect(); }"
+            + "function selected() {"
+            + "  for (var i = 0; i < slides.length; i++) {"
+            + "    if (slides[i].getAttribute('aria-selected') === 'true') { return i; }"
+            + "  }"
+            + "  return -1;"
+            + "}"
+            + "var recorder = {slideCount: slides.length, events: [[selected(), performance.now()]]};"
+            + "recorder.observer = new MutationObserver(function () {"
+            + "  var index = selected();"
+            + "  if (index !== recorder.events[recorder.events.length - 1][0]) {"
+            + "    recorder.events.push([index, performance.now()]);"
+            + "  }"
+            + "});"
+            + "slides.forEach(function (slide) {"
+            + "  recorder.observer.observe(slide, {attributes: true, attributeFilter: ['aria-selected']});"
+            + "});"
+            + "window.__carouselRecorder = recorder;";
+
+    // Resolves true once every slide has one complete stay (entered and left after
+    // recording started), false when the slice ends, null without a recorder
+    private static final String AWAIT_CYCLE_SCRIPT =
+            "var recorder = window.__carouselRecorder, slice = arguments[0];"
+            + "var done = arguments[arguments.length - 1];"
+            + "if (!recorder) { done(null); return; }"
+            + "function complete() {"
+            + "  var seen = {}, count = 0;"
+            + "  for (var k = 1; k + 1 < recorder.events.length; k++) {"
+            + "    var index = recorder.events[k][0];"
+            + "    if (index >= 0 && !seen[index]) { seen[index] = true; count++; }"
+            + "  }"
+            + "  return count >= recorder.slideCount;"
+            + "}"
+            + "var start = performance.now();"
+            + "(function check() {"
+            + "  if (complete()) { done(true); }"
+            + "  else if (performance.now() - start >= slice) { done(false); }"
+            + "  else { setTimeout(check, 50); }"
+            + "})();";
+
+    // Stops recording and returns the timeline plus the slide titles
+    private static final String COLLECT_SCRIPT =
+            "var recorder = window.__carouselRecorder, titles = arguments[0] || [];"
+            + "if (!recorder) { return null; }"
+            + "recorder.observer.disconnect();"
+            + "delete window.__carouselRecorder;"
+            + "return {events: recorder.events, titles: titles.map(function (t) { return (t.innerText || '').trim(); })};";
+
+    private final WebDriver driver;
+
+    private List<WebElement> slides = Collections.emptyList();
+
+    public CarouselTimingRecorder(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Starts recording slide changes in the page
+     *
+     * @param slides Carousel slide controls carrying aria-selected
+     */
+    public void start(List<WebElement> slides) {
+        this.slides = slides;
+        js().executeScript(START_SCRIPT, slides);
+    }
+
+    /**
+     * Waits, inside the page, until every slide has been active once from start to end
+     *
+     * @param timeout Longest time to wait
+     * @return true if a full cycle was recorded, false on timeout or if recording was lost (navigation)
+     */
+    public boolean awaitFullCycle(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            Object complete = js().executeAsyncScript(AWAIT_CYCLE_SCRIPT, Math.min(WAIT_SLICE_MILLIS, remaining));
+            if (complete == null || Boolean.TRUE.equals(complete)) {
+                return Boolean.TRUE.equals(complete);
+            }
+        }
+    }
+
+    /**
+     * Stops recording and works out how long each slide stayed active
+     *
+     * @param titles Slide title elements (same order as the slides), or null
+     * @return Average complete stay per slide in milliseconds, keyed by title
+     *         ("Slide n" when a title is empty); 0 for slides never seen completely
+     */
+    public Map<String, Long> collectSlideDurations(List<WebElement> titles) {
+        Object result = js().executeScript(COLLECT_SCRIPT, titles);
+        int slideCount = slides.size();
+        long[] totals = new long[slideCount];
+        int[] stays = new int[slideCount];
+        List<String> titleTexts = new ArrayList<>();
+
+        if (result instanceof Map) {
+            Map<?, ?> timeline = (Map<?, ?>) result;
+            List<?> events = (List<?>) timeline.get("events");
+            // events[0] is the slide active at start: its beginning was not observed
+            for (int k = 1; k + 1 < events.size(); k++) {
+                int index = ((Number) ((List<?>) events.get(k)).get(0)).intValue();
+                double enteredAt = ((Number) ((List<?>) events.get(k)).get(1)).doubleValue();
+                double leftAt = ((Number) ((List<?>) events.get(k + 1)).get(1)).doubleValue();
+                if (index >= 0 && index < slideCount) {
+                    totals[index] += Math.round(leftAt - enteredAt);
+                    stays[index]++;
+                }
+            }
+            for (Object title : (List<?>) timeline.get("titles")) {
+                titleTexts.add(String.valueOf(title));
+            }
+        }
+
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (int i = 0; i < slideCount; i++) {
+            String title = i < titleTexts.size() && !titleTexts.get(i).isEmpty() ? titleTexts.get(i) : "Slide " + (i + 1);
+            durations.put(title, stays[i] == 0 ? 0L : totals[i] / stays[i]);
+        }
+        return durations;
+    }
+
+    /**
+     * Records one full carousel cycle and returns each slide's display time
+     *
+     * @param slides Carousel slide controls carrying aria-selected
+     * @param titles Slide title elements (same order as the slides), or null
+     * @return Display time per slide in milliseconds, keyed by title
+     * @throws TimeoutException if no full cycle was recorded within carousel.timeoutSeconds
+     *         (or the recorder was lost to a navigation)
+     */
+    public Map<String, Long> measureSlideDurations(List<WebElement> slides, List<WebElement> titles) {
+        start(slides);
+        int timeoutSeconds = Math.max(1, ConfigReader.getIntProperty("carousel.timeoutSeconds", 120));
+        if (!awaitFullCycle(Duration.ofSeconds(timeoutSeconds))) {
+            // Durations of an incomplete cycle would all read 0 and fail as wrong timings
+            throw new TimeoutException("Carousel did not complete a cycle within carousel.timeoutSeconds ("
+                    + timeoutSeconds + "s), or the page navigated away and the recorder was lost");
+        }
+        return collectSlideDurations(titles);
+    }
+
+    private JavascriptExecutor js() {
+        return (JavascriptExecutor) driver;
+    }
+}
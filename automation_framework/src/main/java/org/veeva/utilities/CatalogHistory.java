@@ -0,0 +1,504 @@
+/**
+ * CatalogHistory - Append-Only Catalog History with Incremental Run-to-Run Diffs
+ *
+ * Overwriting the same data file every run hides how a catalog changes over
+ * time. This class keeps, per catalog, the latest state sorted by key plus an
+ * append-only log of what changed in every run. Each new run is compared with
+ * the latest state in a single merge pass over two sorted streams, so the cost
+ * of a run depends on the catalog size only - never on how many runs are stored.
+ * A run is sorted externally (buffered records spilled as sorted runs and merged
+ * at commit), so memory use stays flat however large the catalog is.
+ *
+ * Files per catalog (in catalog.history.dir):
+ * - &lt;catalog&gt;.snapshot.tsv: latest record per key, sorted by key (rewritten atomically)
+ * - &lt;catalog&gt;.history.tsv: append-only log - a RUN line per run, then one line
+ *   per added, removed or changed field: runId, change, key, field, old value, new value
+ *
+ * Changes:
+ * - ADDED / REMOVED: key present in only one of the two runs
+ * - CHANGED: same key, different value in a field (e.g. price, sellerTag)
+ * - DUPLICATE (report only): a record of this run dropped because an earlier one had
+ *   the same key but different values; the old value is the kept one
+ *
+ * Configuration:
+ * - catalog.history.enabled: record catalogs and attach diffs (default true)
+ * - catalog.history.dir: directory of the history files (default catalog-history)
+ * - catalog.history.sortBufferRecords: records held in memory before a sorted run is spilled (default 10000)
+ *
+ * The first field of every record is its key (e.g. the product URL).
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class CatalogHistory {
+
+    // Serialises runs on the same JVM; each catalog is written by one run at a time
+    private static final Object lock = new Object();
+
+    // Columns of the per-run diff report
+    private static final List<String> REPORT_FIELDS = Arrays.asList("change", "key", "field", "oldValue", "newValue");
+
+    private final Path directory;
+    private final String catalog;
+    private final List<String> fields;
+
+    /**
+     * Records of one run, sorted by key when they are committed
+     *
+     * Records are buffered up to catalog.history.sortBufferRecords; a full buffer
+     * is sorted and spilled to a temporary run file. commit() merges the runs, so
+     * memory use is bounded by the buffer whatever the size of the catalog.
+     */
+    public static final class Snapshot implements Closeable {
+        private final int fieldCount;
+        private final Path spillDirectory;
+        private final String spillPrefix;
+        private final int bufferLimit;
+        private final List<List<String>> buffer = new ArrayList<>();
+        private final List<Path> spills = new ArrayList<>();
+        private long recordCount;
+
+        private Snapshot(int fieldCount, Path spillDirectory, String spillPrefix) {
+            this.fieldCount = fieldCount;
+            this.spillDirectory = spillDirectory;
+            this.spillPrefix = spillPrefix;
+            this.bufferLimit = Math.max(1, ConfigReader.getIntProperty("catalog.history.sortBufferRecords", 10000));
+        }
+
+        /**
+         * Adds a record; of several records with the same key the first one is kept
+         *
+         * @param values One value per field, the first being the key
+         * @throws IOException if a full buffer cannot be spilled to disk
+         */
+        public synchronized void add(List<String> values) throws IOException {
+            if (values.size() != fieldCount) {
+                throw new IllegalArgumentException("Expected " + fieldCount + " values but got " + values.size());
+            }
+            List<String> copy = new ArrayList<>(values.size());
+            for (String value : values) {
+                copy.add(value == null ? "" : value);
+            }
+            buffer.add(copy);
+            recordCount++;
+            if (buffer.size() >= bufferLimit) {
+                spill();
+            }
+        }
+
+        /**
+         * @return Number of records added, repeated keys included
+         */
+        public synchronized long size() {
+            return recordCount;
+        }
+
+        /**
+         * Deletes the spilled run files; called by commit()
+         */
+        @Override
+        public synchronized void close() {
+            for (Path spill : spills) {
+                try {
+                    Files.deleteIfExists(spill);
+                } catch (IOException ignored) {
+                    // Marked deleteOnExit when it was created
+                }
+            }
+            spills.clear();
+            buffer.clear();
+        }
+
+        private void spill() throws IOException {
+            buffer.sort(BY_KEY);
+            Files.createDirectories(spillDirectory);
+            Path spill = Files.createTempFile(spillDirectory, spillPrefix, ".run.tmp");
+            spill.toFile().deleteOnExit();
+            spills.add(spill);
+            try (BufferedWriter writer = Files.newBufferedWriter(spill, StandardCharsets.UTF_8)) {
+                for (List<String> record : buffer) {
+                    writeLine(writer, record);
+                }
+            }
+            buffer.clear();
+        }
+
+        /**
+         * @return All records sorted by key; records with equal keys in the order they were added
+         */
+        private synchronized Merger merge() throws IOException {
+            buffer.sort(BY_KEY);
+            Merger merger = new Merger();
+            try {
+                for (Path spill : spills) {
+                    merger.add(new Run(merger.size(), Files.newBufferedReader(spill, StandardCharsets.UTF_8), null));
+                }
+                merger.add(new Run(merger.size(), null, new ArrayList<>(buffer).iterator()));
+            } catch (IOException | RuntimeException e) {
+                merger.close();
+                throw e;
+            }
+            return merger;
+        }
+    }
+
+    // Orders records by key; List.sort is stable, so equal keys keep their insertion order
+    private static final Comparator<List<String>> BY_KEY = Comparator.comparing(record -> record.get(0));
+
+    /**
+     * One sorted run: a spilled file or the in-memory buffer
+     */
+    private static final class Run {
+        private final int order;
+        private final BufferedReader reader;
+        private final Iterator<List<String>> records;
+        private List<String> head;
+
+        private Run(int order, BufferedReader reader, Iterator<List<String>> records) throws IOException {
+            this.order = order;
+            this.reader = reader;
+            this.records = records;
+            advance();
+        }
+
+        private void advance() throws IOException {
+            head = reader != null ? readLine(reader) : records.hasNext() ? records.next() : null;
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs; ties go to the earlier run, so the first record added wins
+     */
+    private static final class Merger implements Closeable {
+        private final PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> {
+            int order = a.head.get(0).compareTo(b.head.get(0));
+            return order != 0 ? order : Integer.compare(a.order, b.order);
+        });
+        private final List<Run> runs = new ArrayList<>();
+
+        private void add(Run run) {
+            runs.add(run);
+            if (run.head != null) {
+                queue.add(run);
+            }
+        }
+
+        private int size() {
+            return runs.size();
+        }
+
+        private List<String> peek() {
+            return queue.isEmpty() ? null : queue.peek().head;
+        }
+
+        private List<String> next() throws IOException {
+            Run run = queue.poll();
+            if (run == null) {
+                return null;
+            }
+            List<String> record = run.head;
+            run.advance();
+            if (run.head != null) {
+                queue.add(run);
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Run run : runs) {
+                if (run.reader != null) {
+                    run.reader.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Outcome of one committed run
+     */
+    public static final class Diff {
+        private final String runId;
+        private final Path report;
+        private int added;
+        private int removed;
+        private int changed;
+        private int collisions;
+
+        private Diff(String runId, Path report) {
+            this.runId = runId;
+            this.report = report;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        /**
+         * @return CSV of every change in this run (change,key,field,oldValue,newValue)
+         */
+        public Path getReport() {
+            return report;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return Number of changed fields (a record with a new price and tag counts twice)
+         */
+        public int getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return Number of records dropped because an earlier record had the same key but different values
+         */
+        public int getCollisions() {
+            return collisions;
+        }
+
+        public boolean hasChanges() {
+            return added + removed + changed > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Run " + runId + ": " + added + " added, " + removed + " removed, " + changed + " changed fields"
+                    + (collisions > 0 ? ", " + collisions + " duplicate keys" : "");
+        }
+    }
+
+    /**
+     * @param directory Directory holding the history files
+     * @param catalog Catalog name, e.g. "Jerseys Products"
+     * @param fields Field names, the first being the key
+     */
+    public CatalogHistory(Path directory, String catalog, List<String> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("A catalog needs at least a key field");
+        }
+        this.directory = directory;
+        this.catalog = catalog.trim().replaceAll("[^A-Za-z0-9._-]+", "_");
+        this.fields = new ArrayList<>(fields);
+    }
+
+    /**
+     * Opens the history of a catalog in catalog.history.dir
+     *
+     * @param catalog Catalog name, e.g. "Jerseys Products"
+     * @param fields Field names, the first being the key
+     * @return History of that catalog
+     */
+    public static CatalogHistory forCatalog(String catalog, List<String> fields) {
+        return new CatalogHistory(Paths.get(ConfigReader.getProperty("catalog.history.dir", "catalog-history")), catalog, fields);
+    }
+
+    /**
+     * @return true unless catalog.history.enabled is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("catalog.history.enabled", true);
+    }
+
+    /**
+     * @return Empty snapshot for the records of a new run
+     */
+    public Snapshot newSnapshot() {
+        return new Snapshot(fields.size(), directory, catalog);
+    }
+
+    /**
+     * Compares a run with the latest stored state, appends the changes to the
+     * history log and makes the run the new latest state
+     *
+     * @param snapshot Records of the run (must not change while it is committed); closed afterwards
+     * @return Counts and CSV report of the changes
+     * @throws IOException if the history files cannot be read or written
+     */
+    public Diff commit(Snapshot snapshot) throws IOException {
+        String runId = Instant.now().toString();
+        Path snapshotFile = directory.resolve(catalog + ".snapshot.tsv");
+        Path historyFile = directory.resolve(catalog + ".history.tsv");
+        Path reportFile = directory.resolve("diffs").resolve(catalog + "-" + runId.replace(':', '-') + ".csv");
+        Diff diff = new Diff(runId, reportFile);
+
+        synchronized (lock) {
+            Files.createDirectories(directory);
+            boolean firstRun = !Files.exists(snapshotFile);
+            Path nextSnapshot = Files.createTempFile(directory, catalog, ".snapshot.tmp");
+            // Changes are collected first, so the RUN line ahead of them can carry the record count
+            Path changes = Files.createTempFile(directory, catalog, ".history.tmp");
+            long records = 0;
+            try (BufferedWriter history = Files.newBufferedWriter(changes, StandardCharsets.UTF_8);
+                 BufferedWriter next = Files.newBufferedWriter(nextSnapshot, StandardCharsets.UTF_8);
+                 RecordSink report = RecordSink.open(reportFile, RecordSink.Format.CSV, REPORT_FIELDS);
+                 Merger current = snapshot.merge();
+                 BufferedReader previous = firstRun ? null : Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+
+                report.write(REPORT_FIELDS);
+
+                // Merge join: previous snapshot and current run are both sorted by key
+                List<String> before = readLine(previous);
+                List<String> after = nextDistinct(current, report, diff);
+                while (before != null || after != null) {
+                    int order = before == null ? 1 : after == null ? -1 : before.get(0).compareTo(after.get(0));
+                    if (order < 0) {
+                        record(history, report, diff, runId, "REMOVED", before, null);
+                        before = readLine(previous);
+                    } else if (order > 0) {
+                        if (!firstRun) {
+                            record(history, report, diff, runId, "ADDED", null, after);
+                        }
+                        writeLine(next, after);
+                        records++;
+                        after = nextDistinct(current, report, diff);
+                    } else {
+                        record(history, report, diff, runId, "CHANGED", before, after);
+                        writeLine(next, after);
+                        records++;
+                        before = readLine(previous);
+                        after = nextDistinct(current, report, diff);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(nextSnapshot);
+                Files.deleteIfExists(changes);
+                throw e;
+            } finally {
+                snapshot.close();
+            }
+            try (OutputStream history = Files.newOutputStream(historyFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                BufferedWriter runLine = new BufferedWriter(new OutputStreamWriter(history, StandardCharsets.UTF_8));
+                writeLine(runLine, Arrays.asList(runId, "RUN", "", "records", "", String.valueOf(records)));
+                runLine.flush();
+                Files.copy(changes, history);
+            } finally {
+                Files.deleteIfExists(changes);
+            }
+            Files.move(nextSnapshot, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return diff;
+    }
+
+    /**
+     * Returns the next key of a run, reporting later records of that key whose values differ
+     */
+    private List<String> nextDistinct(Merger current, RecordSink report, Diff diff) throws IOException {
+        List<String> record = current.next();
+        while (record != null && current.peek() != null && current.peek().get(0).equals(record.get(0))) {
+            List<String> repeated = current.next();
+            if (repeated.equals(record)) {
+                // Same product seen twice (e.g. listing shifted between pages)
+                continue;
+            }
+            diff.collisions++;
+            for (int i = 1; i < fields.size(); i++) {
+                if (!record.get(i).equals(repeated.get(i))) {
+                    report.write(Arrays.asList("DUPLICATE", record.get(0), fields.get(i), record.get(i), repeated.get(i)));
+                }
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Writes the history and report lines for one key
+     */
+    private void record(BufferedWriter history, RecordSink report, Diff diff, String runId, String change,
+                        List<String> before, List<String> after) throws IOException {
+        String key = before != null ? before.get(0) : after.get(0);
+        for (int i = 1; i < fields.size(); i++) {
+            String oldValue = before == null || i >= before.size() ? "" : before.get(i);
+            String newValue = after == null ? "" : after.get(i);
+            if ("CHANGED".equals(change) && oldValue.equals(newValue)) {
+                continue;
+            }
+            List<String> line = Arrays.asList(change, key, fields.get(i), oldValue, newValue);
+            List<String> historyLine = new ArrayList<>(line.size() + 1);
+            historyLine.add(runId);
+            historyLine.addAll(line);
+            writeLine(history, historyLine);
+            report.write(line);
+            if ("CHANGED".equals(change)) {
+                diff.changed++;
+            }
+        }
+        if ("ADDED".equals(change)) {
+            diff.added++;
+        } else if ("REMOVED".equals(change)) {
+            diff.removed++;
+        }
+    }
+
+    private static void writeLine(BufferedWriter writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(escape(values.get(i)));
+        }
+        writer.newLine();
+    }
+
+    private static List<String> readLine(BufferedReader reader) throws IOException {
+        String line = reader == null ? null : reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String value : line.split("\t", -1)) {
+            values.add(unescape(value));
+        }
+        return values;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
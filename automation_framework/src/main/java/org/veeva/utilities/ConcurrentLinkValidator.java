@@ -0,0 +1,187 @@
+/**
+ * ConcurrentLinkValidator - Parallel Link Checks with Global and Per-Host Limits
+ *
+ * Checking links one after the other makes a footer check take the sum of every
+ * link's latency. This class runs the checks concurrently, so a few hundred links
+ * take roughly as long as the slowest host, while two limits keep the load polite:
+ * a global cap on checks in flight and a smaller cap per host, so one site with
+ * many links is not hit with all of them at once.
+ *
+ * Key Features:
+ * - Virtual threads when the JVM has them (Java 21+), otherwise a bounded thread pool
+ * - Global and per-host concurrency caps (semaphores)
+ * - Each distinct URL is checked once, however often it appears
+ * - Results returned in input order, independent of completion order
+ * - submit() starts a check right away, so links can be validated while they are extracted
+ * - Pluggable check (defaults to LinkValidationUtil.checkUrl: cached, HEAD-first, with timeouts)
+ *
+ * Configuration:
+ * - links.validation.maxConcurrent: checks in flight overall (default 32)
+ * - links.validation.maxPerHost: checks in flight per host (default 6)
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+public class ConcurrentLinkValidator implements AutoCloseable {
+
+    private final Function<String, LinkCheckClient.Result> check;
+    private final int maxConcurrent;
+    private final int maxPerHost;
+
+    private final Semaphore global;
+    private final Map<String, Semaphore> perHost = new ConcurrentHashMap<>();
+
+    // One check per distinct URL, shared by every submit() of that URL
+    private final Map<String, CompletableFuture<LinkCheckClient.Result>> checks = new ConcurrentHashMap<>();
+
+    // Created on the first submit()
+    private ExecutorService executor;
+
+    /**
+     * Creates a validator using LinkValidationUtil.checkUrl and the configured limits
+     */
+    public ConcurrentLinkValidator() {
+        this(LinkValidationUtil::checkUrl);
+    }
+
+    /**
+     * Creates a validator with a custom check and the configured limits
+     *
+     * @param check Checks one URL; must be safe to call from several threads
+     */
+    public ConcurrentLinkValidator(Function<String, LinkCheckClient.Result> check) {
+        this(check,
+                ConfigReader.getIntProperty("links.validation.maxConcurrent", 32),
+                ConfigReader.getIntProperty("links.validation.maxPerHost", 6));
+    }
+
+    /**
+     * @param check Checks one URL; must be safe to call from several threads
+     * @param maxConcurrent Checks in flight overall
+     * @param maxPerHost Checks in flight per host
+     */
+    public ConcurrentLinkValidator(Function<String, LinkCheckClient.Result> check, int maxConcurrent, int maxPerHost) {
+        this.check = check;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxPerHost = Math.max(1, Math.min(this.maxConcurrent, maxPerHost));
+        this.global = new Semaphore(this.maxConcurrent);
+    }
+
+    /**
+     * Checks all URLs concurrently and releases the validator's threads
+     *
+     * @param urls URLs to check, duplicates allowed
+     * @return One result per input URL, in input order
+     */
+    public List<LinkCheckClient.Result> validate(List<String> urls) {
+        try {
+            List<CompletableFuture<LinkCheckClient.Result>> pending = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                pending.add(submit(url));
+            }
+            List<LinkCheckClient.Result> results = new ArrayList<>(urls.size());
+            for (CompletableFuture<LinkCheckClient.Result> result : pending) {
+                results.add(result.join());
+            }
+            return results;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Starts checking a URL without waiting for the result
+     *
+     * Lets callers validate links while they are still producing them. A URL
+     * submitted more than once is checked once; every call gets the same future.
+     *
+     * @param url URL to check
+     * @return Result of the check, completed when the check has run
+     */
+    public CompletableFuture<LinkCheckClient.Result> submit(String url) {
+        return checks.computeIfAbsent(url, u -> CompletableFuture.supplyAsync(() -> {
+            Semaphore host = perHost.computeIfAbsent(hostOf(u), h -> new Semaphore(maxPerHost));
+            // Host slot first, so a busy host does not hold global slots while it waits
+            host.acquireUninterruptibly();
+            try {
+                global.acquireUninterruptibly();
+                try {
+                    return run(u);
+                } finally {
+                    global.release();
+                }
+            } finally {
+                host.release();
+            }
+        }, executor()));
+    }
+
+    /**
+     * Stops the validator's threads; checks still running are interrupted
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = newExecutor();
+        }
+        return executor;
+    }
+
+    private LinkCheckClient.Result run(String url) {
+        try {
+            return check.apply(url);
+        } catch (RuntimeException e) {
+            return new LinkCheckClient.Result(url, url, -1, "GET", Collections.emptyList(), 0, e.toString());
+        }
+    }
+
+    /**
+     * Virtual-thread-per-task executor on Java 21+, otherwise a fixed pool of daemon threads
+     *
+     * Looked up reflectively because the framework is compiled for Java 11.
+     */
+    private ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrent, task -> {
+                Thread thread = new Thread(task, "link-validator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
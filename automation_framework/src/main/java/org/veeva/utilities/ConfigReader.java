@@ -87,4 +87,48 @@ public class ConfigReader {
         // Properties.getProperty() is thread-safe for read operations
         return prop.getProperty(key);
     }
+
+    /**
+     * Retrieves a configuration property value with a fallback default
+     * 
+     * JVM system properties take precedence over config.properties so that
+     * framework tuning values (pool sizes, timeouts, etc.) can be overridden
+     * from the Maven command line, e.g. -Ddriver.pool.maxSize=6
+     * 
+     * @param key The property key to look up
+     * @param defaultValue Value returned when the key is not configured anywhere
+     * @return The trimmed property value, or defaultValue if missing or blank
+     */
+    public static String getProperty(String key, String defaultValue) {
+        // System properties override the file based configuration
+        String value = System.getProperty(key, prop.getProperty(key));
+        return (value == null || value.trim().isEmpty()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Retrieves an integer configuration property with a fallback default
+     * 
+     * @param key The property key to look up
+     * @param defaultValue Value returned when the key is missing or not a number
+     * @return Parsed integer value or defaultValue
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            // Fall back to the default for malformed numeric values
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Retrieves a boolean configuration property with a fallback default
+     * 
+     * @param key The property key to look up
+     * @param defaultValue Value returned when the key is missing
+     * @return true if the configured value is "true" (case-insensitive)
+     */
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)));
+    }
 }
@@ -0,0 +1,346 @@
+/**
+ * DriverBinaryResolver - Cached (and Optionally Offline) Driver Binary Resolution
+ *
+ * Without an explicit driver path every ChromeDriver/FirefoxDriver launch runs
+ * Selenium Manager as a subprocess to work out the browser version and the
+ * matching driver, downloading it on a cold machine. This class resolves each
+ * browser/version combination once per JVM and hands out the cached paths, and
+ * can resolve entirely from a pre-populated directory for air-gapped runners.
+ * The browser version is read from the installed browser binary (its --version
+ * output, probed once per JVM), so drivers for several browser versions can be
+ * kept side by side.
+ *
+ * Resolution Order:
+ * 1. webdriver.chrome.driver / webdriver.gecko.driver system property
+ * 2. driver.binaries.dir/&lt;browserVersion&gt;/&lt;driver&gt;, driver.binaries.dir/&lt;majorVersion&gt;/&lt;driver&gt;,
+ *    then driver.binaries.dir/&lt;driver&gt;
+ * 3. Selenium Manager (cache only when driver.binaries.offline=true)
+ *
+ * Configuration:
+ * - driver.binaries.dir: directory with pre-downloaded drivers (default drivers)
+ * - driver.binaries.offline: never touch the network (default false)
+ * - driver.binaries.&lt;browser&gt;.browserPath: browser binary to use with the offline drivers
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.manager.SeleniumManager;
+import org.openqa.selenium.manager.SeleniumManagerOutput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class DriverBinaryResolver {
+
+    // Resolved paths per "browser|version|binary", filled once per JVM
+    private static final Map<String, Resolution> cache = new ConcurrentHashMap<>();
+
+    // Installed browser version per "browser|binary", probed once per JVM
+    private static final Map<String, String> installedVersions = new ConcurrentHashMap<>();
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+(?:\\.\\d+)+)");
+    private static final String UNKNOWN_VERSION = "default";
+
+    // Binaries tried when the session names none (PATH names are resolved by the OS)
+    private static final List<String> DEFAULT_CHROME_BINARIES = Arrays.asList(
+            "google-chrome", "google-chrome-stable", "chromium", "chromium-browser",
+            "/Applications/Google Chrome.app/Contents/MacOS/Google Chrome");
+    private static final List<String> DEFAULT_FIREFOX_BINARIES = Arrays.asList(
+            "firefox", "/Applications/Firefox.app/Contents/MacOS/firefox");
+
+    /**
+     * Driver executable and (optionally) browser binary for one browser version
+     */
+    public static final class Resolution {
+        private final String driverPath;
+        private final String browserPath;
+        private final String source;
+
+        private Resolution(String driverPath, String browserPath, String source) {
+            this.driverPath = driverPath;
+            this.browserPath = browserPath;
+            this.source = source;
+        }
+
+        /**
+         * @return Absolute path of chromedriver/geckodriver
+         */
+        public String getDriverPath() {
+            return driverPath;
+        }
+
+        /**
+         * @return Browser binary to launch, or null to use the installed default
+         */
+        public String getBrowserPath() {
+            return browserPath;
+        }
+
+        /**
+         * @return Where the driver was found (system property, directory, Selenium Manager)
+         */
+        public String getSource() {
+            return source;
+        }
+
+        @Override
+        public String toString() {
+            return driverPath + " (" + source + ")" + (browserPath == null ? "" : ", browser " + browserPath);
+        }
+    }
+
+    /**
+     * Builds a ChromeDriverService for the cached chromedriver and points the
+     * options at the resolved browser binary, if any
+     *
+     * @param options ChromeOptions of the session about to start
+     * @return Service that will not trigger another Selenium Manager lookup
+     */
+    public static ChromeDriverService chromeService(ChromeOptions options) {
+        Resolution resolution = resolve("chrome", options);
+        applyBrowserPath(options, resolution);
+        return chromeService(resolution);
+    }
+
+    /**
+     * @param resolution Previously resolved chromedriver
+     * @return New (not yet started) ChromeDriverService for that chromedriver
+     */
+    public static ChromeDriverService chromeService(Resolution resolution) {
+        return new ChromeDriverService.Builder()
+                .usingDriverExecutable(new File(resolution.getDriverPath()))
+                .usingAnyFreePort()
+                .build();
+    }
+
+    /**
+     * Builds a GeckoDriverService for the cached geckodriver and points the
+     * options at the resolved browser binary, if any
+     *
+     * @param options FirefoxOptions of the session about to start
+     * @return Service that will not trigger another Selenium Manager lookup
+     */
+    public static GeckoDriverService geckoService(FirefoxOptions options) {
+        Resolution resolution = resolve("firefox", options);
+        applyBrowserPath(options, resolution);
+        return geckoService(resolution);
+    }
+
+    /**
+     * @param resolution Previously resolved geckodriver
+     * @return New (not yet started) GeckoDriverService for that geckodriver
+     */
+    public static GeckoDriverService geckoService(Resolution resolution) {
+        return new GeckoDriverService.Builder()
+                .usingDriverExecutable(new File(resolution.getDriverPath()))
+                .usingAnyFreePort()
+                .build();
+    }
+
+    /**
+     * Sets the resolved browser binary on options, unless they already name one
+     *
+     * @param options ChromeOptions or FirefoxOptions
+     * @param resolution Result of {@link #resolve(String, Capabilities)}
+     */
+    public static void applyBrowserPath(Capabilities options, Resolution resolution) {
+        if (resolution.getBrowserPath() == null || configuredBinary(options) != null) {
+            return;
+        }
+        if (options instanceof ChromeOptions) {
+            ((ChromeOptions) options).setBinary(resolution.getBrowserPath());
+        } else if (options instanceof FirefoxOptions) {
+            ((FirefoxOptions) options).setBinary(resolution.getBrowserPath());
+        }
+    }
+
+    /**
+     * Resolves the driver for a browser, using the JVM wide cache
+     *
+     * @param browser "chrome" or "firefox"
+     * @param options Session options (browser binary and its installed version form the cache key)
+     * @return Cached or newly resolved paths
+     * @throws WebDriverException if no driver can be found (e.g. offline with an empty directory)
+     */
+    public static Resolution resolve(String browser, Capabilities options) {
+        String name = browser.toLowerCase(Locale.ROOT);
+        String binary = browserBinary(name, options);
+        String version = browserVersion(name, binary, options);
+        String key = name + "|" + version + "|" + binary;
+        return cache.computeIfAbsent(key, ignored -> lookup(name, version, options));
+    }
+
+    /**
+     * Version of the browser a session will launch: the requested browserVersion
+     * if the options carry one, otherwise the version the installed binary reports
+     *
+     * @param browser "chrome" or "firefox"
+     * @param binary Browser binary the session will use, or null for the installed default
+     * @param options Session options
+     * @return Version such as 126.0.6478.126, or "default" if it cannot be determined
+     */
+    static String browserVersion(String browser, String binary, Capabilities options) {
+        String requested = options.getBrowserVersion();
+        if (requested != null && !requested.isEmpty()) {
+            return requested;
+        }
+        return installedVersions.computeIfAbsent(browser + "|" + binary, ignored -> probeVersion(browser, binary));
+    }
+
+    private static String probeVersion(String browser, String binary) {
+        List<String> candidates = binary != null ? Collections.singletonList(binary)
+                : "firefox".equals(browser) ? DEFAULT_FIREFOX_BINARIES : DEFAULT_CHROME_BINARIES;
+        for (String candidate : candidates) {
+            String version = reportedVersion(candidate);
+            if (version != null) {
+                return version;
+            }
+        }
+        return UNKNOWN_VERSION;
+    }
+
+    private static String reportedVersion(String binary) {
+        Path output;
+        try {
+            output = Files.createTempFile("browser-version-", ".txt");
+        } catch (IOException e) {
+            return null;
+        }
+        Process process = null;
+        try {
+            // Output goes to a file, so a binary that ignores --version and keeps running
+            // (e.g. chrome.exe starting the browser) cannot block a read; the wait is bounded
+            process = new ProcessBuilder(binary, "--version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                return null;
+            }
+            for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+                Matcher matcher = VERSION.matcher(line);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            // Not installed under this name, or unreadable output
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+            try {
+                Files.deleteIfExists(output);
+            } catch (IOException ignored) {
+                // Temp file is cleaned up with the temp directory
+            }
+        }
+    }
+
+    private static String browserBinary(String browser, Capabilities options) {
+        String binary = configuredBinary(options);
+        if (binary != null) {
+            return binary;
+        }
+        String browserPath = ConfigReader.getProperty("driver.binaries." + browser + ".browserPath", "");
+        return browserPath.isEmpty() ? null : browserPath;
+    }
+
+    private static List<Path> versionDirectories(Path directory, String version) {
+        Set<Path> candidates = new LinkedHashSet<>();
+        if (!UNKNOWN_VERSION.equals(version)) {
+            candidates.add(directory.resolve(version));
+            int dot = version.indexOf('.');
+            if (dot > 0) {
+                candidates.add(directory.resolve(version.substring(0, dot)));
+            }
+        }
+        candidates.add(directory);
+        return new ArrayList<>(candidates);
+    }
+
+    private static Resolution lookup(String browser, String version, Capabilities options) {
+        String driverName = "firefox".equals(browser) ? "geckodriver" : "chromedriver";
+        String browserPath = ConfigReader.getProperty("driver.binaries." + browser + ".browserPath", "");
+        String configuredBrowser = browserPath.isEmpty() ? null : browserPath;
+
+        // 1. Explicit driver path, as honoured by Selenium itself
+        String systemProperty = System.getProperty("firefox".equals(browser)
+                ? GeckoDriverService.GECKO_DRIVER_EXE_PROPERTY : ChromeDriverService.CHROME_DRIVER_EXE_PROPERTY);
+        if (systemProperty != null && new File(systemProperty).canExecute()) {
+            return new Resolution(systemProperty, configuredBrowser, "system property");
+        }
+
+        // 2. Pre-populated directory, version specific first
+        Path directory = Paths.get(ConfigReader.getProperty("driver.binaries.dir", "drivers"));
+        for (Path candidate : versionDirectories(directory, version)) {
+            Path driver = executableIn(candidate, driverName);
+            if (driver != null) {
+                return new Resolution(driver.toAbsolutePath().toString(), configuredBrowser, candidate.toString());
+            }
+        }
+
+        // 3. Selenium Manager, restricted to its local cache in offline mode
+        boolean offline = ConfigReader.getBooleanProperty("driver.binaries.offline", false);
+        try {
+            SeleniumManagerOutput.Result result = SeleniumManager.getInstance().getDriverPath(options, offline);
+            String resolvedBrowser = configuredBrowser != null ? configuredBrowser
+                    : (result.getBrowserPath() == null || result.getBrowserPath().isEmpty() ? null : result.getBrowserPath());
+            return new Resolution(result.getDriverPath(), resolvedBrowser,
+                    offline ? "Selenium Manager cache" : "Selenium Manager");
+        } catch (RuntimeException e) {
+            throw new WebDriverException("No " + driverName + " for " + browser + " " + version + " in " + directory.toAbsolutePath()
+                    + (offline ? " and none in the Selenium Manager cache (driver.binaries.offline=true)" : ""), e);
+        }
+    }
+
+    private static Path executableIn(Path directory, String driverName) {
+        for (String fileName : new String[]{driverName, driverName + ".exe"}) {
+            Path driver = directory.resolve(fileName);
+            if (Files.isRegularFile(driver) && Files.isExecutable(driver)) {
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    private static String configuredBinary(Capabilities options) {
+        for (String key : new String[]{ChromeOptions.CAPABILITY, FirefoxOptions.FIREFOX_OPTIONS}) {
+            Object vendorOptions = options.getCapability(key);
+            if (vendorOptions instanceof Map && ((Map<?, ?>) vendorOptions).get("binary") != null) {
+                return String.valueOf(((Map<?, ?>) vendorOptions).get("binary"));
+            }
+        }
+        return null;
+    }
+}
@@ -12,6 +12,16 @@
  * - Anti-detection configurations to avoid bot detection
  * - Custom browser options for optimal test execution
  * - Automatic resource cleanup to prevent memory leaks
+ * - Warm session reuse through BrowserSessionPool (driver.pool.enabled)
+ * - Per-scenario ad/tracker/media request blocking through NetworkRequestFilter
+ * - Configurable page-load strategy (eager by default) with PageReadiness tracking
+ * - Long-lived chromedriver/geckodriver processes shared by sessions (SharedDriverServices)
+ * - Driver binaries resolved once per JVM, optionally offline (DriverBinaryResolver)
+ * - Named launch profiles (driver.launchProfile) from standard to minimal
+ * - Remote execution on a Selenium Grid with slot-aware scheduling (driver.mode=remote)
+ * - Crash/hang detection through SessionHealthMonitor with in-place session recovery
+ * - Process and ThreadLocal tracking through BrowserProcessRegistry (orphan reaping)
+ * - Opt-in virtual time for timer-driven scenarios (@VirtualTime, VirtualTimeController)
  * 
  * Supported Browsers:
  * - Google Chrome (with anti-detection features)
@@ -27,6 +37,7 @@
  */
 package org.veeva.utilities;
 
+import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -35,14 +46,111 @@ import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Supplier;
+
 public class DriverFactory {
 
     // ThreadLocal storage for WebDriver instances to support parallel execution
     // Each thread gets its own WebDriver instance, preventing interference between tests
     private static final ThreadLocal<WebDriver> driver = new ThreadLocal<>();
 
+    // Request blocking profile active for the current thread's scenario, if any
+    private static final ThreadLocal<NetworkRequestFilter> requestFilter = new ThreadLocal<>();
+
+    // Tags of the current thread's scenario, kept so a recovered session gets the same filtering
+    private static final ThreadLocal<Collection<String>> scenarioTags = new ThreadLocal<>();
+
+    /**
+     * Initializes the WebDriver for the current thread
+     * 
+     * When the session pool is enabled (default) a warm, already reset browser is
+     * leased from BrowserSessionPool; otherwise a new browser is launched through
+     * {@link #createDriver()}.
+     * 
+     * Thread Safety: Uses ThreadLocal to store WebDriver per thread
+     */
+    public static void initDriver() {
+        initDriver(Collections.emptyList());
+    }
+
     /**
-     * Initializes WebDriver based on browser configuration from config.properties
+     * Initializes the WebDriver for the current thread and applies the network
+     * filtering profile selected by the scenario's tags
+     * 
+     * Requests matching the categories in network.filter.categories (ads,
+     * analytics, video, fonts, ...) are blocked unless the scenario opts out
+     * with a tag such as @AllowAds or @NoRequestBlocking.
+     * 
+     * @param scenarioTags Source tag names of the scenario about to run
+     */
+    public static void initDriver(Collection<String> scenarioTags) {
+        DriverFactory.scenarioTags.set(scenarioTags);
+        if (BrowserSessionPool.isEnabled()) {
+            driver.set(BrowserSessionPool.getInstance().lease());
+        } else {
+            driver.set(createDriver());
+        }
+        BrowserProcessRegistry.claim(driver.get());
+        BrowserProcessRegistry.bindThreadLocal("DriverFactory.driver");
+        requestFilter.set(NetworkRequestFilter.start(driver.get(), scenarioTags));
+        VirtualTimeController.start(driver.get(), scenarioTags);
+    }
+
+    /**
+     * Checks whether the current thread's browser has crashed or hung
+     * 
+     * @return true if SessionHealthMonitor has declared the session dead
+     */
+    public static boolean isDriverDead() {
+        return SessionHealthMonitor.isDead(driver.get());
+    }
+
+    /**
+     * Replaces a dead session with a new one for the current thread
+     * 
+     * The dead session's processes have already been killed by SessionHealthMonitor;
+     * it is dropped from the pool and a replacement is leased (or launched) with
+     * the same request blocking profile as before.
+     */
+    public static void recoverDriver() {
+        Collection<String> tags = scenarioTags.get();
+        stopRequestFilter();
+        WebDriver dead = driver.get();
+        clearDriver();
+        if (dead != null) {
+            try {
+                if (BrowserSessionPool.isEnabled()) {
+                    BrowserSessionPool.getInstance().discard(dead);
+                } else {
+                    quit(dead);
+                }
+            } catch (Exception ignored) {
+                // The browser is already gone - quit only frees the session on the driver side
+            }
+        }
+        initDriver(tags == null ? Collections.emptyList() : tags);
+    }
+
+    /**
+     * Starts launching browsers in the background before the first scenario runs
+     * 
+     * Intended to be called from the TestNG runners once the "browser" system
+     * property is set: first from @BeforeTest, before Cucumber parses the features,
+     * then again with the real count once the scenarios are known (the pool only
+     * tops up to the new count). Does nothing when the pool is disabled.
+     * 
+     * @param expectedParallelScenarios Number of scenarios expected to run at once
+     */
+    public static void prewarm(int expectedParallelScenarios) {
+        if (BrowserSessionPool.isEnabled()) {
+            BrowserSessionPool.getInstance().prewarm(expectedParallelScenarios);
+        }
+    }
+
+    /**
+     * Launches a new WebDriver based on browser configuration from config.properties
      * 
      * This method reads the browser type from configuration and creates the appropriate
      * WebDriver instance with optimized settings for test automation.
@@ -58,12 +166,30 @@ public class DriverFactory {
      * - Window size optimization
      * - Headless mode for CI/CD environments
      * 
-     * Thread Safety: Uses ThreadLocal to store WebDriver per thread
+     * With driver.mode=remote the same options are sent to the Selenium Grid at
+     * grid.url once GridCapacityScheduler sees a free slot for the browser.
+     * 
+     * @return Newly launched WebDriver
+     * @throws RuntimeException if the browser is not supported or could not be started
      */
-    public static void initDriver() {
+    static WebDriver createDriver() {
+        // Read browser configuration from config.properties file
+        return createDriver(System.getProperty("browser"), BrowserLaunchProfile.configured());
+    }
+
+    /**
+     * Launches a new WebDriver for an explicit browser and launch profile
+     * 
+     * The profile's switches/preferences are added on top of the base options
+     * described in {@link #createDriver()}. Used directly by LaunchProfileBenchmark.
+     * 
+     * @param browser Browser name (chrome or firefox)
+     * @param profile Launch profile to apply
+     * @return Newly launched WebDriver
+     * @throws RuntimeException if the browser is not supported or could not be started
+     */
+    static WebDriver createDriver(String browser, BrowserLaunchProfile profile) {
         try {
-            // Read browser configuration from config.properties file
-            String browser = System.getProperty("browser");
 
             // Initialize Chrome WebDriver with anti-detection and optimization settings
             if (browser.equalsIgnoreCase("chrome")) {
@@ -86,18 +212,23 @@ public class DriverFactory {
                 options.addArguments("--headless=new");  // New headless mode for better performance
                 options.addArguments("--disable-gpu");   // Disable GPU for headless mode stability
 
-                // Create ChromeDriver instance and store in ThreadLocal
-                driver.set(new ChromeDriver(options));
-                
+                // Profile switches (driver.launchProfile) trim background features for faster startup
+                profile.applyTo(options);
+
+                // Return from driver.get() at DOMContentLoaded; PageReadiness decides when the page is usable
+                options.setPageLoadStrategy(PageReadiness.configuredPageLoadStrategy());
+
                 // Set system property for reporting and logging
                 System.setProperty("browser.name", browser);
+
+                // Create ChromeDriver instance (on a shared chromedriver, a dedicated one, or the grid)
+                return startSession(options, () -> SharedDriverServices.isEnabled()
+                        ? SharedDriverServices.startChrome(options)
+                        : new ChromeDriver(DriverBinaryResolver.chromeService(options), options));
             }
 
             // Initialize Firefox WebDriver with custom preferences
             if (browser.equalsIgnoreCase("firefox")) {
-                // Optional: Set geckodriver path (not needed if using Selenium Manager)
-                System.setProperty("webdriver.firefox.driver", "path/to/geckodriver.exe");
-
                 FirefoxOptions options = new FirefoxOptions();
                 
                 // Window size configurations for Firefox
@@ -108,23 +239,56 @@ public class DriverFactory {
                 // Headless mode for CI/CD environments
                 options.addArguments("--headless");     // Firefox headless mode
                 options.addArguments("--disable-gpu");  // GPU disable for Firefox stability
-//
+
+                // Same page-load strategy as Chrome; readiness falls back to Resource Timing
+                options.setPageLoadStrategy(PageReadiness.configuredPageLoadStrategy());
+
                 // Set custom user agent preference for Firefox
                 options.addPreference("general.useragent.override", 
                     "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
                     + "(KHTML, like Gecko) Chrome/115.0.0.0 Safari/537.36");
 
-                // Create FirefoxDriver instance and store in ThreadLocal
-                driver.set(new FirefoxDriver(options));
-                
+                // Profile preferences (driver.launchProfile) switch off updates, telemetry, prefetch...
+                profile.applyTo(options);
+
                 // Set system property for reporting and logging
                 System.setProperty("browser.name", browser);
+
+                // Create FirefoxDriver instance (on a reused geckodriver, a dedicated one, or the grid)
+                return startSession(options, () -> SharedDriverServices.isEnabled()
+                        ? SharedDriverServices.startFirefox(options)
+                        : new FirefoxDriver(DriverBinaryResolver.geckoService(options), options));
             }
 
         } catch (Exception e) {
-            // Print stack trace for debugging WebDriver initialization issues
-            e.printStackTrace();
+            // Surface the launch failure to the scenario instead of handing out a null driver
+            throw new RuntimeException("Could not start browser '" + browser + "'", e);
         }
+        throw new IllegalArgumentException("Unsupported browser: '" + browser + "' (use chrome or firefox)");
+    }
+
+    /**
+     * Starts a browser session locally or on the configured Selenium Grid
+     * 
+     * @param options Fully configured browser options
+     * @param localLauncher Creates the session on this machine
+     * @return Started WebDriver with the page readiness tracker installed,
+     *         wrapped in a SessionHealthMonitor
+     */
+    private static WebDriver startSession(Capabilities options, Supplier<WebDriver> localLauncher) {
+        WebDriver session = GridCapacityScheduler.isRemoteMode()
+                ? GridCapacityScheduler.getInstance().createSession(options)
+                : localLauncher.get();
+
+        // Install the network-idle tracker for every page this session loads
+        PageReadiness.installTracker(session);
+
+        // Watch every command so crashed or hung browsers are detected quickly
+        WebDriver monitored = SessionHealthMonitor.monitor(session);
+
+        // Remember the processes so orphans can be reaped if the session is never quit
+        BrowserProcessRegistry.register(monitored, session);
+        return monitored;
     }
 
     /**
@@ -141,6 +305,38 @@ public class DriverFactory {
         return driver.get();
     }
 
+    /**
+     * Hands the current thread's WebDriver back once a scenario is finished
+     * 
+     * Pooled sessions are reset and returned to BrowserSessionPool so the next
+     * scenario can reuse the running browser; non-pooled sessions, crashed ones
+     * and ones switched to virtual time are quit. The ThreadLocal entry is always removed.
+     */
+    public static void releaseDriver() {
+        WebDriver current = driver.get();
+        if (current == null) {
+            return;
+        }
+        try {
+            // Detach request blocking so the pooled session returns unfiltered
+            stopRequestFilter();
+
+            if (BrowserSessionPool.isEnabled()) {
+                if (SessionHealthMonitor.isDead(current) || VirtualTimeController.isActive(current)) {
+                    // A crashed browser cannot be reset, and virtual time cannot be switched
+                    // back to real time - drop the session instead of returning it
+                    BrowserSessionPool.getInstance().discard(current);
+                } else {
+                    BrowserSessionPool.getInstance().release(current);
+                }
+            } else {
+                quit(current);
+            }
+        } finally {
+            clearDriver();
+        }
+    }
+
     /**
      * Safely quits the WebDriver and cleans up ThreadLocal storage
      * 
@@ -149,17 +345,47 @@ public class DriverFactory {
      * 2. Calls quit() to close all browser windows and end WebDriver session
      * 3. Removes the WebDriver instance from ThreadLocal to prevent memory leaks
      * 
-     * Should be called in test teardown methods or Cucumber @After hooks
-     * to ensure proper resource cleanup and prevent memory leaks.
+     * Pooled sessions are discarded instead of being returned for reuse. Use
+     * {@link #releaseDriver()} for the normal end-of-scenario path.
      */
     public static void quitDriver() {
+        stopRequestFilter();
+
         // Check if WebDriver instance exists for current thread
         if (driver.get() != null) {
-            // Close all browser windows and end the WebDriver session
-            driver.get().quit();
-            
-            // Remove WebDriver instance from ThreadLocal to prevent memory leaks
-            driver.remove();
+            if (BrowserSessionPool.isEnabled()) {
+                // Drop the session from the pool and quit the browser
+                BrowserSessionPool.getInstance().discard(driver.get());
+            } else {
+                // Close all browser windows and end the WebDriver session
+                quit(driver.get());
+            }
+        }
+
+        // Remove WebDriver instance from ThreadLocal to prevent memory leaks
+        clearDriver();
+    }
+
+    private static void quit(WebDriver session) {
+        try {
+            session.quit();
+        } finally {
+            BrowserProcessRegistry.unregister(session);
+        }
+    }
+
+    private static void clearDriver() {
+        VirtualTimeController.forget(driver.get());
+        driver.remove();
+        scenarioTags.remove();
+        BrowserProcessRegistry.unbindThreadLocal("DriverFactory.driver");
+    }
+
+    private static void stopRequestFilter() {
+        NetworkRequestFilter filter = requestFilter.get();
+        requestFilter.remove();
+        if (filter != null) {
+            filter.close();
         }
     }
 }
@@ -33,7 +33,6 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.WebDriverWait;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 
 import java.lang.reflect.Field;
 import java.time.Duration;
@@ -106,8 +105,9 @@ public class ElementFetcher extends BaseClass {
             // Handle single WebElement fields
             if (value instanceof WebElement) {
                 // Wait for the WebElement to be visible before returning
-                // This ensures the element is ready for interaction
-                wait.until(ExpectedConditions.visibilityOf((WebElement) value));
+                // The timeout adapts to how long this field took in earlier runs
+                WaitTelemetry.until(super.driver, waitKey(pageObject, fieldName),
+                        EventDrivenConditions.visibilityOf((WebElement) value));
                 
             // Handle List<WebElement> fields
             } else if (value instanceof List && !((List<?>) value).isEmpty()) {
@@ -117,7 +117,8 @@ public class ElementFetcher extends BaseClass {
                 // If the first element is a WebElement, wait for its visibility
                 // This ensures at least one element in the list is visible
                 if (first instanceof WebElement) {
-                    wait.until(ExpectedConditions.visibilityOf((WebElement) first));
+                    WaitTelemetry.until(super.driver, waitKey(pageObject, fieldName),
+                            EventDrivenConditions.visibilityOf((WebElement) first));
                 }
             }
 
@@ -133,4 +134,11 @@ public class ElementFetcher extends BaseClass {
             );
         }
     }
+
+    /**
+     * @return Telemetry key of a page object field, e.g. "HomePage.cookieAcceptBtn"
+     */
+    private static String waitKey(Object pageObject, String fieldName) {
+        return pageObject.getClass().getSimpleName() + "." + fieldName;
+    }
 }
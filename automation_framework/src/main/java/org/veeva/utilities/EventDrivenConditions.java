@@ -0,0 +1,302 @@
+/**
+ * EventDrivenConditions - MutationObserver-Based Drop-In for ExpectedConditions
+ *
+ * A WebDriverWait on an ExpectedConditions condition sends one command per poll
+ * and sleeps 500 ms between polls, so a condition that becomes true just after a
+ * poll is noticed up to half a second late. The conditions in this class instead
+ * run one asynchronous script that watches the page with a MutationObserver
+ * (plus an IntersectionObserver on the target elements) and answers the moment
+ * the condition holds. The first evaluation normally settles the whole wait.
+ *
+ * Key Features:
+ * - Same factory methods and return types as ExpectedConditions (drop-in at call sites)
+ * - Evaluated in the page on DOM, attribute, text, layout and transition changes
+ * - Each evaluation blocks for at most wait.eventDriven.sliceMillis, then WebDriverWait
+ *   evaluates again, so the wait's own timeout and ignored exceptions still apply
+ * - Falls back to ExpectedConditions when disabled or when the script cannot run
+ *
+ * Configuration:
+ * - wait.eventDriven.enabled: use in-page observers (default true)
+ * - wait.eventDriven.sliceMillis: longest single in-page wait (default 5000, at most 25000)
+ *
+ * Visibility follows the usual WebDriver rules: the element is attached, has a
+ * non-empty box and is not hidden by display, visibility or opacity.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class EventDrivenConditions {
+
+    // Longest in-page wait per evaluation
+    private static final long MAX_SLICE_MILLIS = 25_000;
+
+    // Pause before an element list that matched nothing is looked up again
+    private static final long EMPTY_LIST_RETRY_MILLIS = 100;
+
+    // Resolves when the condition holds (true) or the slice ends (false); re-checks on
+    // every DOM mutation, intersection change, transition/animation end and every 100 ms
+    private static final String WAIT_SCRIPT =
+            "var kind = arguments[0], target = arguments[1], text = arguments[2], slice = arguments[3];"
+            + "var done = arguments[arguments.length - 1];"
+            + "function visible(el) {"
+            + "  if (!el || !el.isConnected) { return false; }"
+            + "  for (var node = el; node && node.nodeType === 1; node = node.parentElement) {"
+            + "    var style = getComputedStyle(node);"
+            + "    if (style.display === 'none' || parseFloat(style.opacity) === 0) { return false; }"
+            + "  }"
+            + "  if (getComputedStyle(el).visibility !== 'visible') { return false; }"
+            + "  var rect = el.getBoundingClientRect();"
+            + "  return rect.width > 0 && rect.height > 0;"
+            + "}"
+            + "function locate() {"
+            + "  if (target && target.xpath) {"
+            + "    return document.evaluate(target.xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+            + "  }"
+            + "  return target && target.css ? document.querySelector(target.css) : target;"
+            + "}"
+            + "function met() {"
+            + "  switch (kind) {"
+            + "    case 'visible': case 'located': return visible(locate());"
+            + "    case 'clickable': var el = locate(); return visible(el) && !el.disabled;"
+            + "    case 'allVisible': return target.length > 0 && target.every(visible);"
+            + "    case 'text': var t = locate(); return !!t && t.isConnected && (t.innerText || t.textContent || '').indexOf(text) >= 0;"
+            + "    case 'title': return document.title.indexOf(text) >= 0;"
+            + "  }"
+            + "  return false;"
+            + "}"
+            + "if (met()) { done(true); return; }"
+            // An empty list was resolved before the call and never refills: let Java look it up again
+            + "if (kind === 'allVisible' && target.length === 0) { done('empty'); return; }"
+            + "var finished = false, observer, intersections, timer, interval;"
+            + "function finish(result) {"
+            + "  if (finished) { return; }"
+            + "  finished = true;"
+            + "  observer.disconnect();"
+            + "  if (intersections) { intersections.disconnect(); }"
+            + "  clearTimeout(timer); clearInterval(interval);"
+            + "  document.removeEventListener('transitionend', check, true);"
+            + "  document.removeEventListener('animationend', check, true);"
+            + "  done(result);"
+            + "}"
+            + "function check() { try { if (met()) { finish(true); } } catch (e) { finish(false); } }"
+            + "observer = new MutationObserver(check);"
+            + "observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});"
+            + "if (window.IntersectionObserver && kind !== 'title' && kind !== 'located') {"
+            + "  intersections = new IntersectionObserver(check);"
+            + "  [].concat(target).forEach(function (el) { if (el && el.nodeType === 1) { intersections.observe(el); } });"
+            + "}"
+            + "document.addEventListener('transitionend', check, true);"
+            + "document.addEventListener('animationend', check, true);"
+            + "interval = setInterval(check, 100);"
+            + "timer = setTimeout(function () { finish(false); }, slice);";
+
+    // Wall-clock deadline of the enclosing wait, if known; no slice runs past it
+    private static final ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    /**
+     * Checks whether event-driven waiting is configured
+     *
+     * @return true unless wait.eventDriven.enabled is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("wait.eventDriven.enabled", true);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#visibilityOf(WebElement)}
+     *
+     * @param element Element (or PageFactory proxy) to wait for
+     * @return Condition returning the element once it is visible
+     */
+    public static ExpectedCondition<WebElement> visibilityOf(WebElement element) {
+        return condition(() -> "visibility of " + element, "visible", element, null, ExpectedConditions.visibilityOf(element), element);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#visibilityOfAllElements(List)}
+     *
+     * @param elements Elements (or PageFactory list proxy) to wait for
+     * @return Condition returning the elements once there is at least one and all are visible
+     */
+    public static ExpectedCondition<List<WebElement>> visibilityOfAllElements(List<WebElement> elements) {
+        return condition(() -> "visibility of all " + elements, "allVisible", elements, null,
+                ExpectedConditions.visibilityOfAllElements(elements), elements);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#elementToBeClickable(WebElement)}
+     *
+     * @param element Element (or PageFactory proxy) to wait for
+     * @return Condition returning the element once it is visible and enabled
+     */
+    public static ExpectedCondition<WebElement> elementToBeClickable(WebElement element) {
+        return condition(() -> "element to be clickable: " + element, "clickable", element, null,
+                ExpectedConditions.elementToBeClickable(element), element);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#textToBePresentInElement(WebElement, String)}
+     *
+     * @param element Element (or PageFactory proxy) to watch
+     * @param text Text the element must contain
+     * @return Condition returning true once the text is present
+     */
+    public static ExpectedCondition<Boolean> textToBePresentInElement(WebElement element, String text) {
+        return condition(() -> "text ('" + text + "') to be present in " + element, "text", element, text,
+                ExpectedConditions.textToBePresentInElement(element, text), Boolean.TRUE);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#titleContains(String)}
+     *
+     * @param title Text the page title must contain
+     * @return Condition returning true once the title contains the text
+     */
+    public static ExpectedCondition<Boolean> titleContains(String title) {
+        return condition(() -> "title to contain \"" + title + "\"", "title", null, title,
+                ExpectedConditions.titleContains(title), Boolean.TRUE);
+    }
+
+    /**
+     * Event-driven equivalent of {@link ExpectedConditions#visibilityOfElementLocated(By)}
+     *
+     * Only XPath and CSS locators can be evaluated in the page; any other
+     * locator uses the polling condition.
+     *
+     * @param locator XPath or CSS locator
+     * @return Condition returning the element once it is visible
+     */
+    public static ExpectedCondition<WebElement> visibilityOfElementLocated(By locator) {
+        ExpectedCondition<WebElement> polling = ExpectedConditions.visibilityOfElementLocated(locator);
+        String description = locator.toString();
+        String kind = description.startsWith("By.xpath: ") ? "xpath" : description.startsWith("By.cssSelector: ") ? "css" : null;
+        if (kind == null) {
+            return polling;
+        }
+        Map<String, String> target = Collections.singletonMap(kind,
+                description.substring(description.indexOf(": ") + 2));
+        return new ExpectedCondition<WebElement>() {
+            @Override
+            public WebElement apply(WebDriver driver) {
+                Boolean met = awaitInPage(driver, "located", target, null);
+                // Fetch the element itself only once it is known to be there
+                return met == null || met ? polling.apply(driver) : null;
+            }
+
+            @Override
+            public String toString() {
+                return "visibility of element located by " + locator;
+            }
+        };
+    }
+
+    /**
+     * Runs a wait whose in-page slices must not outlast the given deadline
+     *
+     * WebDriverWait only checks its timeout between evaluations, so a short
+     * (e.g. adaptive) timeout would otherwise be overrun by a full slice.
+     *
+     * @param deadlineMillis Epoch millis at which the wait times out
+     * @param wait The wait to run
+     * @param <T> Result type
+     * @return Result of the wait
+     */
+    static <T> T withDeadline(long deadlineMillis, Supplier<T> wait) {
+        Long previous = deadline.get();
+        deadline.set(deadlineMillis);
+        try {
+            return wait.get();
+        } finally {
+            if (previous == null) {
+                deadline.remove();
+            } else {
+                deadline.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Builds a condition that blocks in the page until it holds, then returns the given value
+     */
+    private static <T> ExpectedCondition<T> condition(Supplier<String> description, String kind, Object target, String text,
+                                                      ExpectedCondition<T> polling, T result) {
+        return new ExpectedCondition<T>() {
+            @Override
+            public T apply(WebDriver driver) {
+                Boolean met = awaitInPage(driver, kind, target, text);
+                if (met == null) {
+                    // Script could not run (disabled, no async script support): poll as before
+                    return polling.apply(driver);
+                }
+                return met ? result : null;
+            }
+
+            @Override
+            public String toString() {
+                // Built lazily: toString() of a PageFactory proxy looks the element up
+                return description.get();
+            }
+        };
+    }
+
+    /**
+     * Runs the observer script for at most one slice
+     *
+     * An element list that matched nothing when the script was called cannot
+     * fill up inside the page, so it is looked up again every 100 ms instead of
+     * waiting out the slice.
+     *
+     * @return true if the condition holds, false if the slice ended first,
+     *         null if the condition has to be evaluated by polling instead
+     */
+    private static Boolean awaitInPage(WebDriver driver, String kind, Object target, String text) {
+        if (!isEnabled() || !(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        // Stay well inside WebDriver's default 30 s script timeout
+        long slice = Math.min(MAX_SLICE_MILLIS, Math.max(100, ConfigReader.getIntProperty("wait.eventDriven.sliceMillis", 5000)));
+        Long waitDeadline = deadline.get();
+        if (waitDeadline != null) {
+            slice = Math.max(50, Math.min(slice, waitDeadline - System.currentTimeMillis()));
+        }
+        long sliceEnd = System.currentTimeMillis() + slice;
+        try {
+            while (true) {
+                // A PageFactory list proxy is resolved again for every call
+                Object result = ((JavascriptExecutor) driver).executeAsyncScript(WAIT_SCRIPT, kind, target, text,
+                        Math.max(50, sliceEnd - System.currentTimeMillis()));
+                if (!"empty".equals(result) || System.currentTimeMillis() + EMPTY_LIST_RETRY_MILLIS >= sliceEnd) {
+                    return Boolean.TRUE.equals(result);
+                }
+                Thread.sleep(EMPTY_LIST_RETRY_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (StaleElementReferenceException | ScriptTimeoutException e) {
+            // Element replaced or page navigated away mid-wait: evaluate again
+            return false;
+        } catch (JavascriptException | UnsupportedCommandException e) {
+            return null;
+        }
+    }
+}
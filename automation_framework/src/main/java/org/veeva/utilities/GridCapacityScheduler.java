@@ -0,0 +1,221 @@
+/**
+ * GridCapacityScheduler - Slot-Aware RemoteWebDriver Session Dispatcher
+ *
+ * This class creates RemoteWebDriver sessions on a Selenium Grid (or a local
+ * standalone grid process) only when the grid reports a free slot for the
+ * requested browser. Instead of firing session requests at a saturated grid and
+ * failing on session-creation timeouts, scenarios wait here until capacity is
+ * available, which lets suites scale horizontally across grid nodes.
+ *
+ * Key Features:
+ * - Polls the grid's /status endpoint for free slots matching the browser
+ * - Tracks in-flight session requests from this JVM so they are not double-counted
+ * - Backs off between polls and gives up after grid.slotWaitSeconds
+ * - Retries session creation when another client grabbed the slot first
+ * - Augments sessions so DevTools/CDP features keep working remotely
+ *
+ * Configuration:
+ * - driver.mode: local (default) or remote
+ * - grid.url: Grid hub or standalone URL (default http://localhost:4444)
+ * - grid.slotWaitSeconds: maximum wait for a free slot (default 300)
+ * - grid.pollMillis: initial delay between status polls (default 500)
+ * - grid.sessionAttempts: session creation attempts per scenario (default 3)
+ *
+ * Local Testing:
+ * - java -jar selenium-server-4.14.0.jar standalone --max-sessions 4
+ * - mvn test -Ddriver.mode=remote -Dgrid.url=http://localhost:4444
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GridCapacityScheduler {
+
+    // Lazily created singleton shared by every scenario thread in the JVM
+    private static volatile GridCapacityScheduler instance;
+
+    // Session requests sent by this JVM that the grid may not report as busy yet
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    // Shared HTTP client for status polling (keeps the connection to the grid alive)
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Json json = new Json();
+    private final URL gridUrl;
+    private final long slotWaitMillis;
+    private final long pollMillis;
+    private final int sessionAttempts;
+
+    private GridCapacityScheduler() {
+        String url = ConfigReader.getProperty("grid.url", "http://localhost:4444");
+        try {
+            this.gridUrl = URI.create(url).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid grid.url: " + url, e);
+        }
+        this.slotWaitMillis = ConfigReader.getIntProperty("grid.slotWaitSeconds", 300) * 1000L;
+        this.pollMillis = Math.max(100, ConfigReader.getIntProperty("grid.pollMillis", 500));
+        this.sessionAttempts = Math.max(1, ConfigReader.getIntProperty("grid.sessionAttempts", 3));
+    }
+
+    /**
+     * @return Shared GridCapacityScheduler instance
+     */
+    public static GridCapacityScheduler getInstance() {
+        if (instance == null) {
+            synchronized (GridCapacityScheduler.class) {
+                if (instance == null) {
+                    instance = new GridCapacityScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether browsers should be created on a Selenium Grid
+     *
+     * @return true if driver.mode is set to "remote"
+     */
+    public static boolean isRemoteMode() {
+        return "remote".equalsIgnoreCase(ConfigReader.getProperty("driver.mode", "local"));
+    }
+
+    /**
+     * Creates a RemoteWebDriver session once the grid has a free matching slot
+     *
+     * @param options Browser options (ChromeOptions, FirefoxOptions, ...)
+     * @return Augmented RemoteWebDriver session
+     * @throws RuntimeException if no slot frees up in time or every attempt fails
+     */
+    public WebDriver createSession(Capabilities options) {
+        SessionNotCreatedException lastFailure = null;
+        for (int attempt = 1; attempt <= sessionAttempts; attempt++) {
+            awaitFreeSlot(options.getBrowserName());
+            try {
+                // Augmenter adds CDP/DevTools interfaces the grid advertises via se:cdp
+                return new Augmenter().augment(new RemoteWebDriver(gridUrl, options));
+            } catch (SessionNotCreatedException e) {
+                // Another client took the slot between our status poll and the request
+                lastFailure = e;
+            } finally {
+                inFlightRequests.decrementAndGet();
+            }
+        }
+        throw new RuntimeException("Grid at " + gridUrl + " could not create a '" + options.getBrowserName()
+                + "' session after " + sessionAttempts + " attempts", lastFailure);
+    }
+
+    /**
+     * Blocks until the grid reports a free slot for the browser and reserves it
+     *
+     * The reservation is released by {@link #createSession(Capabilities)} once
+     * the session request has completed.
+     */
+    private void awaitFreeSlot(String browserName) {
+        long deadline = System.currentTimeMillis() + slotWaitMillis;
+        long delay = pollMillis;
+        while (true) {
+            synchronized (this) {
+                // Free slots reported by the grid, minus requests we have sent but it has not counted yet
+                if (countFreeSlots(browserName) - inFlightRequests.get() > 0) {
+                    inFlightRequests.incrementAndGet();
+                    return;
+                }
+            }
+            if (System.currentTimeMillis() + delay > deadline) {
+                throw new RuntimeException("No free '" + browserName + "' slot on grid " + gridUrl
+                        + " within " + (slotWaitMillis / 1000) + "s");
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a grid slot", e);
+            }
+            // Exponential backoff keeps status polling cheap on a busy grid
+            delay = Math.min(delay * 2, 5000);
+        }
+    }
+
+    /**
+     * Counts idle slots whose stereotype matches the browser on nodes that are UP
+     *
+     * @param browserName Browser name from the requested capabilities
+     * @return Number of free slots, or 0 if the grid cannot be queried
+     */
+    @SuppressWarnings("unchecked")
+    public int countFreeSlots(String browserName) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(gridUrl.toString().replaceAll("/+$", "") + "/status"))
+                    .timeout(Duration.ofSeconds(10))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return 0;
+            }
+
+            Map<String, Object> status = json.toType(response.body(), Json.MAP_TYPE);
+            Map<String, Object> value = (Map<String, Object>) status.getOrDefault("value", Collections.emptyMap());
+            List<Map<String, Object>> nodes = (List<Map<String, Object>>) value.getOrDefault("nodes", Collections.emptyList());
+
+            int free = 0;
+            for (Map<String, Object> node : nodes) {
+                if (!"UP".equalsIgnoreCase(String.valueOf(node.get("availability")))) {
+                    continue;
+                }
+                List<Map<String, Object>> slots = (List<Map<String, Object>>) node.getOrDefault("slots", Collections.emptyList());
+                int busyOnNode = 0;
+                int freeOnNode = 0;
+                for (Map<String, Object> slot : slots) {
+                    if (slot.get("session") != null) {
+                        busyOnNode++;
+                        continue;
+                    }
+                    Map<String, Object> stereotype = (Map<String, Object>) slot.getOrDefault("stereotype", Collections.emptyMap());
+                    if (browserName.equalsIgnoreCase(String.valueOf(stereotype.get("browserName")))) {
+                        freeOnNode++;
+                    }
+                }
+                // A node never runs more than maxSessions at once, whatever its slot count
+                Object maxSessions = node.get("maxSessions");
+                if (maxSessions instanceof Number) {
+                    freeOnNode = Math.min(freeOnNode, ((Number) maxSessions).intValue() - busyOnNode);
+                }
+                free += Math.max(0, freeOnNode);
+            }
+            return free;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception e) {
+            // Grid unreachable or unexpected payload - treat as no capacity and keep polling
+            return 0;
+        }
+    }
+}
@@ -6,9 +6,11 @@
  * cleanup, and automatic screenshot capture for failed test steps.
  * 
  * Key Features:
- * - Automatic WebDriver initialization before each scenario
- * - Proper resource cleanup after each scenario
+ * - WebDriver lease (warm pooled session) before each scenario
+ * - Session release back to the pool after each scenario
  * - Automatic screenshot capture on test failures
+ * - Browser crash recovery: dead sessions are replaced and the scenario is
+ *   recorded in target/crashed-scenarios.txt for a rerun
  * - Allure reporting integration with browser labeling
  * - ThreadLocal WebDriverWait management for parallel execution
  * 
@@ -36,7 +38,13 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.io.ByteArrayInputStream;
-import java.time.Duration;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Hooks {
 
@@ -44,39 +52,69 @@ public class Hooks {
     // Each thread gets its own WebDriverWait instance
     private static final ThreadLocal<WebDriverWait> wait = new ThreadLocal<>();
 
+    // Ensures the browser pre-warm timings are attached to the report only once per JVM
+    private static final AtomicBoolean prewarmReported = new AtomicBoolean(false);
+
+    // Rerun file (Cucumber "uri:line" format) listing scenarios hit by a browser crash
+    private static final Path CRASHED_SCENARIOS_FILE = Paths.get("target", "crashed-scenarios.txt");
+
     /**
      * Setup method that runs before each Cucumber scenario
      * 
      * This method performs the following setup operations:
-     * 1. Initializes WebDriver through DriverFactory
+     * 1. Leases a WebDriver session through DriverFactory, applying the
+     *    request blocking profile selected by the scenario's tags
      * 2. Creates WebDriverWait instance for the current thread
      * 3. Sets up Allure reporting with browser information
      * 
      * The @Before annotation ensures this method runs before every scenario,
-     * providing a fresh browser instance for each test.
+     * providing a clean (freshly reset or newly launched) browser for each test.
+     * 
+     * @param scenario The Cucumber scenario about to run
      */
     @Before
-    public void setUp() {
+    public void setUp(Scenario scenario) {
         // Initialize WebDriver based on configuration (Chrome, Firefox, etc.)
-        DriverFactory.initDriver();
+        // Tags such as @AllowAds or @BlockImages tune which requests are blocked
+        DriverFactory.initDriver(scenario.getSourceTagNames());
         
         // Get the WebDriver instance for current thread
         WebDriver driver = DriverFactory.getDriver();
         
-        // Create WebDriverWait with 10-second timeout and store in ThreadLocal
+        // Create WebDriverWait with the default timeout and store in ThreadLocal
         // This allows each thread to have its own wait instance for parallel execution
-        wait.set(new WebDriverWait(driver, Duration.ofSeconds(10)));
+        wait.set(new WebDriverWait(driver, WaitTelemetry.defaultTimeout()));
+        BrowserProcessRegistry.bindThreadLocal("Hooks.wait");
         
         // Add browser information to Allure report for better test documentation
         // This helps identify which browser was used for each test execution
         Allure.label("browser", ConfigReader.getProperty("browser"));
+
+        // Attach the pre-warm timings to the first scenario that runs in this JVM
+        attachPrewarmSummaryOnce();
+    }
+
+    /**
+     * Attaches the BrowserSessionPool pre-warm timings to the current scenario
+     * 
+     * The warm-up phase runs in the runner's @BeforeClass where no Allure test
+     * is active, so its summary is reported by the first scenario instead.
+     */
+    private void attachPrewarmSummaryOnce() {
+        if (!BrowserSessionPool.isEnabled() || prewarmReported.get()) {
+            return;
+        }
+        String summary = BrowserSessionPool.getInstance().getPrewarmSummary();
+        if (summary != null && prewarmReported.compareAndSet(false, true)) {
+            AllureReportUtils.attachTextToAllure("Browser Pre-warm Timings", summary);
+        }
     }
 
     /**
      * Teardown method that runs after each Cucumber scenario
      * 
      * This method performs cleanup operations to ensure proper resource management:
-     * 1. Quits the WebDriver instance and closes all browser windows
+     * 1. Releases the WebDriver session (reset and returned to the pool, or quit)
      * 2. Removes WebDriverWait from ThreadLocal to prevent memory leaks
      * 
      * The @After annotation ensures this method runs after every scenario,
@@ -84,13 +122,16 @@ public class Hooks {
      */
     @After
     public void tearDown() {
-        // Quit WebDriver and clean up ThreadLocal storage
-        // This closes all browser windows and ends the WebDriver session
-        DriverFactory.quitDriver();
-        
-        // Remove WebDriverWait from ThreadLocal to prevent memory leaks
-        // This is important for long-running test suites
-        wait.remove();
+        try {
+            // Return the session to the pool and clean up ThreadLocal storage
+            // The browser is reset (cookies, storage, tabs) rather than relaunched
+            DriverFactory.releaseDriver();
+        } finally {
+            // Remove WebDriverWait from ThreadLocal to prevent memory leaks
+            // This is important for long-running test suites
+            wait.remove();
+            BrowserProcessRegistry.unbindThreadLocal("Hooks.wait");
+        }
     }
 
     /**
@@ -104,6 +145,12 @@ public class Hooks {
      */
     @AfterStep
     public void captureScreenshot(Scenario scenario) {
+        // A crashed browser cannot take screenshots - replace it instead
+        if (DriverFactory.isDriverDead()) {
+            recoverCrashedBrowser(scenario);
+            return;
+        }
+
         // Check if the current scenario has failed
         if (scenario.isFailed()) {
             // Capture screenshot as byte array from the current WebDriver instance
@@ -115,6 +162,38 @@ public class Hooks {
         }
     }
 
+    /**
+     * Replaces the crashed browser and marks the scenario for a rerun
+     * 
+     * The remaining steps of the scenario are skipped by Cucumber; the fresh
+     * session keeps later hooks and the next scenario on this thread from
+     * failing against the dead browser one timeout at a time.
+     * 
+     * @param scenario The scenario whose browser crashed
+     */
+    private void recoverCrashedBrowser(Scenario scenario) {
+        String reason = SessionHealthMonitor.getDeathReason(DriverFactory.getDriver());
+        AllureReportUtils.attachTextToAllure("Browser Crash", reason + "\nScenario marked for rerun");
+        Allure.label("tag", "browser-crash");
+        markForRerun(scenario);
+
+        DriverFactory.recoverDriver();
+        wait.set(new WebDriverWait(DriverFactory.getDriver(), WaitTelemetry.defaultTimeout()));
+    }
+
+    private static void markForRerun(Scenario scenario) {
+        String entry = scenario.getUri() + ":" + scenario.getLine() + System.lineSeparator();
+        synchronized (CRASHED_SCENARIOS_FILE) {
+            try {
+                Files.createDirectories(CRASHED_SCENARIOS_FILE.getParent());
+                Files.write(CRASHED_SCENARIOS_FILE, entry.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Could not record crashed scenario: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Static method to get WebDriver instance for the current thread
      * 
@@ -0,0 +1,164 @@
+/**
+ * LaunchProfileBenchmark - Browser Startup Latency and Memory per Launch Profile
+ *
+ * This utility launches every selected BrowserLaunchProfile several times for
+ * each browser and measures how long it takes until the first WebDriver command
+ * completes, and how much memory the driver plus browser processes hold once
+ * started. The p50/p95 figures are printed and the raw samples written to CSV,
+ * so the fastest profile can be chosen from data rather than guesswork.
+ *
+ * Measurements:
+ * - Time-to-first-command: from launch request until getWindowHandle() returns
+ *   (includes the framework's session setup, e.g. the readiness tracker, and
+ *   starting chromedriver/geckodriver)
+ * - Memory: resident set size of driver + browser process tree (local sessions on
+ *   Linux only), taken after the first command or after loading benchmark.url; the
+ *   benchmark fails rather than report a launch it could not measure
+ *
+ * Every launch starts its own driver service (driver.service.shared is forced to
+ * false), so each one pays the driver start-up and its memory includes the driver
+ * process. With shared services only the first launch would pay for the driver,
+ * skewing that profile's p95 and leaving the driver out of every memory figure.
+ *
+ * Configuration (system properties or config.properties):
+ * - benchmark.profiles: comma separated profiles (default: all)
+ * - benchmark.browsers: comma separated browsers (default: the configured browser)
+ * - benchmark.launches: launches per profile and browser (default 10)
+ * - benchmark.url: optional page to load before measuring memory
+ * - benchmark.report: CSV of raw samples (default target/launch-benchmark.csv)
+ *
+ * Usage:
+ * mvn -pl automation_framework compile exec:java
+ *     -Dexec.mainClass=org.veeva.utilities.LaunchProfileBenchmark
+ *     -Dbenchmark.browsers=chrome,firefox -Dbenchmark.launches=20
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.WebDriver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class LaunchProfileBenchmark {
+
+    /**
+     * Runs the benchmark and prints a p50/p95 summary per browser and profile
+     *
+     * @param args Not used - configuration comes from system properties
+     * @throws IOException if the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        // Measure every launch on equal terms: its own driver service, started and counted each time
+        System.setProperty("driver.service.shared", "false");
+        List<BrowserLaunchProfile> profiles = selectedProfiles();
+        List<String> browsers = splitList(ConfigReader.getProperty("benchmark.browsers",
+                ConfigReader.getProperty("browser", "chrome")));
+        int launches = Math.max(1, ConfigReader.getIntProperty("benchmark.launches", 10));
+        String url = ConfigReader.getProperty("benchmark.url", "");
+        Path report = Paths.get(ConfigReader.getProperty("benchmark.report", "target/launch-benchmark.csv"));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+
+        List<String> summary = new ArrayList<>();
+        summary.add(String.format("%-10s %-10s %8s %8s %12s %12s", "browser", "profile",
+                "p50 ms", "p95 ms", "p50 mem KB", "p95 mem KB"));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write("browser,profile,launch,timeToFirstCommandMs,residentMemoryKb");
+            writer.newLine();
+
+            for (String browser : browsers) {
+                for (BrowserLaunchProfile profile : profiles) {
+                    List<Long> latencies = new ArrayList<>();
+                    List<Long> memory = new ArrayList<>();
+                    for (int launch = 1; launch <= launches; launch++) {
+                        long[] sample = measureLaunch(browser, profile, url);
+                        latencies.add(sample[0]);
+                        memory.add(sample[1]);
+                        writer.write(browser + "," + profile.name().toLowerCase(Locale.ROOT) + "," + launch + ","
+                                + sample[0] + "," + sample[1]);
+                        writer.newLine();
+                    }
+                    writer.flush();
+                    summary.add(String.format("%-10s %-10s %8d %8d %12d %12d", browser, profile.name().toLowerCase(Locale.ROOT),
+                            Utilities.percentile(latencies, 50), Utilities.percentile(latencies, 95),
+                            Utilities.percentile(memory, 50), Utilities.percentile(memory, 95)));
+                }
+            }
+        }
+
+        System.out.println("Launch profile benchmark (" + launches + " launches each, dedicated driver per launch;"
+                + " memory includes the driver process)");
+        for (String line : summary) {
+            System.out.println(line);
+        }
+        System.out.println("Raw samples written to " + report.toAbsolutePath());
+    }
+
+    /**
+     * Launches one browser, times its first command and samples its memory
+     *
+     * @return {time-to-first-command ms, resident memory KB}
+     * @throws IllegalStateException if the browser's memory cannot be measured
+     */
+    private static long[] measureLaunch(String browser, BrowserLaunchProfile profile, String url) {
+        long startedAt = System.nanoTime();
+        WebDriver driver = DriverFactory.createDriver(browser, profile);
+        try {
+            driver.getWindowHandle();
+            long timeToFirstCommand = (System.nanoTime() - startedAt) / 1_000_000;
+            if (!url.isEmpty()) {
+                driver.get(url);
+            }
+            long memoryKb = BrowserProcessRegistry.sessionResidentMemoryKb(driver);
+            if (memoryKb < 0) {
+                // A benchmark without memory figures would silently report half of what it is for
+                throw new IllegalStateException("Could not measure the memory of the " + browser + " launch ("
+                        + profile.name().toLowerCase(Locale.ROOT) + "): no local browser process found"
+                        + " (remote sessions and non-Linux hosts cannot be measured)");
+            }
+            return new long[]{timeToFirstCommand, memoryKb};
+        } finally {
+            try {
+                driver.quit();
+            } finally {
+                BrowserProcessRegistry.unregister(driver);
+            }
+        }
+    }
+
+    private static List<BrowserLaunchProfile> selectedProfiles() {
+        String names = ConfigReader.getProperty("benchmark.profiles", "");
+        if (names.isEmpty()) {
+            return Arrays.asList(BrowserLaunchProfile.values());
+        }
+        List<BrowserLaunchProfile> profiles = new ArrayList<>();
+        for (String name : splitList(names)) {
+            profiles.add(BrowserLaunchProfile.fromName(name));
+        }
+        return profiles;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * LinkCheckCache - Persistent Link Check Results with TTL and Conditional Revalidation
+ *
+ * Footer links rarely change between runs, yet every run checked all of them
+ * again. This cache keeps the outcome of each working link on disk, keyed by the
+ * normalized URL, together with the ETag/Last-Modified validators the server sent.
+ *
+ * Lookup per URL:
+ * - Fresh entry (younger than links.cache.ttlHours): answered from the cache, no request
+ * - Stale entry: revalidated with If-None-Match/If-Modified-Since; a 304 renews it
+ * - No entry, or the link was broken last time: checked in full
+ *
+ * Key Features:
+ * - One JVM-wide cache shared by parallel scenarios and every test module
+ * - Concurrent checks of the same URL are coalesced into one request
+ * - Persisted across runs; saved at JVM exit by merging with the file under an
+ *   exclusive lock on a sidecar .lock file, newest entry per URL wins, so parallel
+ *   JVMs (e.g. modules under mvn -T) do not overwrite each other
+ * - Broken links are never served from the cache, so failures are always rechecked
+ * - Throttled or skipped checks (see LinkThrottle) never replace a stored entry
+ *
+ * Configuration:
+ * - links.cache.enabled: use the cache (default true)
+ * - links.cache.ttlHours: age after which an entry is revalidated (default 24)
+ * - links.cache.file: cache file (default link-cache/link-status.tsv); a relative path is
+ *   resolved against the Maven project root (maven.multiModuleProjectDirectory, passed on
+ *   by surefire), so every module shares one cache, or the working directory outside Maven
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LinkCheckCache {
+
+    /**
+     * Cached outcome of one link
+     */
+    private static final class Entry {
+        private final int statusCode;
+        private final String finalUrl;
+        private final String etag;
+        private final String lastModified;
+        private final long checkedAt;
+
+        private Entry(int statusCode, String finalUrl, String etag, String lastModified, long checkedAt) {
+            this.statusCode = statusCode;
+            this.finalUrl = finalUrl;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    // Lazily created singleton shared by every thread in the JVM
+    private static volatile LinkCheckCache instance;
+
+    // Entries loaded from the file plus everything checked in this JVM
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Entries written in this JVM, merged into the file at exit
+    private final Map<String, Entry> updated = new ConcurrentHashMap<>();
+
+    // Checks in flight, so parallel scenarios asking for the same URL share one request
+    private final Map<String, CompletableFuture<LinkCheckClient.Result>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger revalidated = new AtomicInteger();
+    private final AtomicInteger checked = new AtomicInteger();
+
+    private final LinkCheckClient client;
+    private final Path file;
+    private final long ttlMillis;
+
+    LinkCheckCache(LinkCheckClient client) {
+        this.client = client;
+        this.file = cacheFile();
+        this.ttlMillis = TimeUnit.HOURS.toMillis(Math.max(0, ConfigReader.getIntProperty("links.cache.ttlHours", 24)));
+        try {
+            entries.putAll(read(file));
+        } catch (IOException e) {
+            System.err.println("Could not read link cache from " + file + ": " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::save, "link-cache-save"));
+    }
+
+    /**
+     * Returns the JVM wide cache, creating (and loading) it on first use
+     *
+     * @return Shared LinkCheckCache instance backed by the shared LinkCheckClient
+     */
+    public static LinkCheckCache getInstance() {
+        if (instance == null) {
+            synchronized (LinkCheckCache.class) {
+                if (instance == null) {
+                    instance = new LinkCheckCache(LinkCheckClient.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether link checks should go through the cache
+     *
+     * @return true unless links.cache.enabled is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("links.cache.enabled", true);
+    }
+
+    /**
+     * Returns the status of a link from the cache, revalidating or checking it as needed
+     *
+     * @param url Absolute http(s) URL
+     * @return Result of the check; isCached() tells whether the cache answered
+     */
+    public LinkCheckClient.Result check(String url) {
+        String key = normalize(url);
+        Entry entry = entries.get(key);
+        if (entry != null && isWorking(entry.statusCode) && System.currentTimeMillis() - entry.checkedAt < ttlMillis) {
+            hits.incrementAndGet();
+            return fromEntry(url, entry, 0);
+        }
+
+        CompletableFuture<LinkCheckClient.Result> mine = new CompletableFuture<>();
+        CompletableFuture<LinkCheckClient.Result> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            LinkCheckClient.Result result = refresh(url, key, entry);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * @return One-line summary of cache use in this JVM
+     */
+    public String getSummary() {
+        return "Answered from cache: " + hits.get() + ", revalidated (304): " + revalidated.get()
+                + ", checked: " + checked.get() + ", TTL: " + TimeUnit.MILLISECONDS.toHours(ttlMillis) + " h";
+    }
+
+    /**
+     * Merges this JVM's entries into the cache file
+     *
+     * Re-reads the file first and keeps the newest entry per URL, so entries
+     * saved by other runners in the meantime survive. The re-read and the move
+     * happen under a lock on &lt;file&gt;.lock, so two JVMs saving at the same time
+     * take turns. Called automatically at JVM exit.
+     */
+    public synchronized void save() {
+        if (updated.isEmpty()) {
+            return;
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Blocks until no other JVM is between its re-read and its move
+                FileLock lock = channel.lock();
+                try {
+                    merge();
+                } finally {
+                    lock.release();
+                }
+            }
+            updated.clear();
+        } catch (IOException e) {
+            System.err.println("Could not save link cache to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the cache file with this JVM's entries merged in; caller holds the file lock
+     */
+    private void merge() throws IOException {
+        Map<String, Entry> merged = new TreeMap<>(read(file));
+        for (Map.Entry<String, Entry> entry : updated.entrySet()) {
+            Entry existing = merged.get(entry.getKey());
+            if (existing == null || existing.checkedAt <= entry.getValue().checkedAt) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "link-status", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : merged.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(String.join("\t", entry.getKey(), String.valueOf(value.statusCode), field(value.finalUrl),
+                        field(value.etag), field(value.lastModified), String.valueOf(value.checkedAt)));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private LinkCheckClient.Result refresh(String url, String key, Entry entry) {
+        boolean conditional = entry != null && isWorking(entry.statusCode) && (entry.etag != null || entry.lastModified != null);
+        LinkCheckClient.Result result = conditional
+                ? client.check(url, entry.etag, entry.lastModified)
+                : client.check(url);
+
+        if (conditional && result.getStatusCode() == 304) {
+            revalidated.incrementAndGet();
+            store(key, new Entry(entry.statusCode, entry.finalUrl, entry.etag, entry.lastModified, System.currentTimeMillis()));
+            return fromEntry(url, entry, result.getMillis());
+        }
+        checked.incrementAndGet();
+        // Throttled or skipped checks say nothing about the link: keep whatever was known before
+        if (result.getOutcome() == LinkCheckClient.Outcome.WORKING || result.getOutcome() == LinkCheckClient.Outcome.BROKEN) {
+            store(key, new Entry(result.getStatusCode(), result.getFinalUrl(), result.getEtag(), result.getLastModified(),
+                    System.currentTimeMillis()));
+        }
+        return result;
+    }
+
+    private void store(String key, Entry entry) {
+        entries.put(key, entry);
+        updated.put(key, entry);
+    }
+
+    private static LinkCheckClient.Result fromEntry(String url, Entry entry, long millis) {
+        return new LinkCheckClient.Result(url, entry.finalUrl, entry.statusCode, "HEAD", Collections.emptyList(), millis, null,
+                entry.etag, entry.lastModified, true);
+    }
+
+    private static boolean isWorking(int statusCode) {
+        return (statusCode >= 200 && statusCode < 300) || statusCode == 403;
+    }
+
+    /**
+     * Cache key: lower-case scheme and host, no default port, no fragment, "/" for an empty path
+     */
+    static String normalize(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = URI.create(trimmed);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return trimmed;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + (defaultPort ? "" : ":" + port) + path
+                    + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        } catch (IllegalArgumentException e) {
+            return trimmed;
+        }
+    }
+
+    private static Path cacheFile() {
+        Path configured = Paths.get(ConfigReader.getProperty("links.cache.file", "link-cache/link-status.tsv"));
+        String root = System.getProperty("maven.multiModuleProjectDirectory", "");
+        if (configured.isAbsolute() || root.trim().isEmpty() || root.contains("${")) {
+            return configured;
+        }
+        return Paths.get(root.trim()).resolve(configured);
+    }
+
+    private static Map<String, Entry> read(Path file) throws IOException {
+        Map<String, Entry> entries = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 6) {
+                    continue;
+                }
+                try {
+                    entries.put(fields[0], new Entry(Integer.parseInt(fields[1]), value(fields[2]), value(fields[3]),
+                            value(fields[4]), Long.parseLong(fields[5])));
+                } catch (NumberFormatException ignored) {
+                    // Skip damaged lines rather than losing the whole cache
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Header values never contain tabs or line breaks; "-" stands for a missing value
+    private static String field(String value) {
+        return value == null || value.isEmpty() ? "-" : value.replaceAll("[\t\r\n]", " ");
+    }
+
+    private static String value(String field) {
+        return "-".equals(field) ? null : field;
+    }
+}
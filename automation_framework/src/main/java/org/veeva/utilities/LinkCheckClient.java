@@ -0,0 +1,434 @@
+/**
+ * LinkCheckClient - Pooled, Thread-Safe HTTP Client for Link Checks
+ *
+ * A link check only needs a status code, yet a plain GET downloads the whole
+ * page and, without timeouts, a single hanging server stalls the scenario.
+ * This client probes each link with HEAD first and only falls back to a GET
+ * asking for the first byte (Range: bytes=0-0) when the server rejects or
+ * mishandles HEAD; a body that is sent anyway is abandoned unread. Connections
+ * are pooled and kept alive by one shared java.net.http.HttpClient.
+ *
+ * Key Features:
+ * - HEAD-first probing with a ranged GET fallback for HEAD-hostile servers
+ * - Connect and per-request timeouts, so hanging links fail fast
+ * - Redirects followed manually, with every hop captured in the result
+ * - Shared connection pool with keep-alive; safe to use from many threads
+ * - Result type with status, method, final URL, redirect chain, time and error
+ * - Conditional checks (If-None-Match / If-Modified-Since) for LinkCheckCache
+ * - Every request passes LinkThrottle (per-host token bucket and circuit breaker);
+ *   only 429/503 responses and response timeouts count toward opening a circuit
+ * - Outcome per link: working, broken, throttled/unknown or skipped (open circuit)
+ *
+ * Working Links:
+ * - Final status 2xx (including 206 for the ranged GET)
+ * - Final status 403: the page exists but refuses automated access
+ *
+ * A host that cannot be reached within links.check.connectTimeoutMillis is
+ * broken; only a connected host that is too slow to answer is unknown (throttled).
+ *
+ * Configuration:
+ * - links.check.connectTimeoutMillis: TCP/TLS connect timeout (default 5000)
+ * - links.check.requestTimeoutMillis: time allowed per request until headers arrive (default 10000)
+ * - links.check.maxRedirects: redirects followed before giving up (default 5)
+ * - links.check.relaxedHttps: accept any certificate and skip the host name check,
+ *   as RestAssured's relaxed HTTPS validation did (default true)
+ * - links.check.userAgent: User-Agent header sent with every probe
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public class LinkCheckClient {
+
+    /**
+     * Verdict of a link check
+     */
+    public enum Outcome {
+        /** 2xx or 403 */
+        WORKING,
+        /** Any other status, or no response: unreachable host, connect timeout, DNS or TLS error */
+        BROKEN,
+        /** The host pushed back (429/503) or did not answer in time: the link's state is unknown */
+        THROTTLED,
+        /** Not checked because the host's circuit was open (see LinkThrottle) */
+        SKIPPED
+    }
+
+    /**
+     * Outcome of one link check
+     */
+    public static final class Result {
+        private final String url;
+        private final String finalUrl;
+        private final int statusCode;
+        private final String method;
+        private final List<String> redirectChain;
+        private final long millis;
+        private final String error;
+        private final String etag;
+        private final String lastModified;
+        private final boolean cached;
+        private final Outcome outcome;
+
+        Result(String url, String finalUrl, int statusCode, String method, List<String> redirectChain, long millis, String error) {
+            this(url, finalUrl, statusCode, method, redirectChain, millis, error, null, null, false);
+        }
+
+        Result(String url, String finalUrl, int statusCode, String method, List<String> redirectChain, long millis, String error,
+               String etag, String lastModified, boolean cached) {
+            this(url, finalUrl, statusCode, method, redirectChain, millis, error, etag, lastModified, cached,
+                    (statusCode >= 200 && statusCode < 300) || statusCode == 403 ? Outcome.WORKING
+                            : LinkThrottle.isThrottled(statusCode) ? Outcome.THROTTLED : Outcome.BROKEN);
+        }
+
+        Result(String url, String finalUrl, int statusCode, String method, List<String> redirectChain, long millis, String error,
+               String etag, String lastModified, boolean cached, Outcome outcome) {
+            this.url = url;
+            this.finalUrl = finalUrl;
+            this.statusCode = statusCode;
+            this.method = method;
+            this.redirectChain = Collections.unmodifiableList(redirectChain);
+            this.millis = millis;
+            this.error = error;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.cached = cached;
+            this.outcome = outcome;
+        }
+
+        /**
+         * @return Working, broken, throttled/unknown or skipped
+         */
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return true for a final status of 2xx or 403
+         */
+        public boolean isWorking() {
+            return outcome == Outcome.WORKING;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return URL that produced the final status, after redirects
+         */
+        public String getFinalUrl() {
+            return finalUrl;
+        }
+
+        /**
+         * @return Final HTTP status, or -1 if no response was received
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return Method of the final request: HEAD, or GET after a fallback
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * @return Every hop that answered with a redirect, as "status url"
+         */
+        public List<String> getRedirectChain() {
+            return redirectChain;
+        }
+
+        /**
+         * @return Time taken for the whole check
+         */
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return Reason the check failed without a status (timeout, DNS, TLS...), or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return ETag of the final response, or null
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return Last-Modified of the final response, or null
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true if the status was taken from LinkCheckCache (fresh or confirmed by a 304)
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(outcome.name()).append(": ").append(method).append(' ').append(url).append(" -> ")
+                    .append(statusCode < 0 ? "no response" : String.valueOf(statusCode));
+            if (!redirectChain.isEmpty()) {
+                text.append(" via ").append(String.join(", ", redirectChain));
+            }
+            if (error != null) {
+                text.append(" (").append(error).append(')');
+            }
+            return text.append(cached ? " (cached)" : "").append(" in ").append(millis).append(" ms").toString();
+        }
+    }
+
+    // Lazily created singleton shared by every thread in the JVM
+    private static volatile LinkCheckClient instance;
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxRedirects;
+    private final String userAgent;
+
+    LinkCheckClient() {
+        this.requestTimeout = Duration.ofMillis(Math.max(100, ConfigReader.getIntProperty("links.check.requestTimeoutMillis", 10000)));
+        this.maxRedirects = Math.max(0, ConfigReader.getIntProperty("links.check.maxRedirects", 5));
+        this.userAgent = ConfigReader.getProperty("links.check.userAgent", "Mozilla/5.0 (link-check)");
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.max(100, ConfigReader.getIntProperty("links.check.connectTimeoutMillis", 5000))))
+                // Redirects are followed by hand so each hop can be reported
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (ConfigReader.getBooleanProperty("links.check.relaxedHttps", true)) {
+            builder.sslContext(trustAllContext());
+        }
+        this.client = builder.build();
+    }
+
+    /**
+     * Returns the JVM wide client, creating it on first use
+     *
+     * @return Shared LinkCheckClient instance
+     */
+    public static LinkCheckClient getInstance() {
+        if (instance == null) {
+            synchronized (LinkCheckClient.class) {
+                if (instance == null) {
+                    instance = new LinkCheckClient();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks one link: HEAD first, ranged GET if HEAD is refused, redirects followed
+     *
+     * @param url Absolute http(s) URL
+     * @return Result of the check; never throws for network problems
+     */
+    public Result check(String url) {
+        return check(url, null, null);
+    }
+
+    /**
+     * Checks one link conditionally, so an unchanged page answers 304 Not Modified
+     *
+     * @param url Absolute http(s) URL
+     * @param etag ETag from an earlier check (If-None-Match), or null
+     * @param lastModified Last-Modified from an earlier check (If-Modified-Since), or null
+     * @return Result of the check (status 304 if the page is unchanged); never throws for network problems
+     */
+    public Result check(String url, String etag, String lastModified) {
+        long startedAt = System.nanoTime();
+        List<String> redirects = new ArrayList<>();
+        String current = url.trim();
+        String method = "HEAD";
+        try {
+            for (int hop = 0; ; hop++) {
+                URI uri = URI.create(current);
+                HttpResponse<InputStream> response = send(uri, "HEAD", etag, lastModified);
+                method = "HEAD";
+                if (response != null && response.statusCode() >= 400 && response.statusCode() != 403
+                        && !LinkThrottle.isThrottled(response.statusCode())) {
+                    // Many servers answer HEAD with 404/405/501 or worse; trust only a GET
+                    response = send(uri, "GET", etag, lastModified);
+                    method = "GET";
+                }
+                if (response == null) {
+                    return new Result(url, current, -1, method, redirects, elapsed(startedAt),
+                            "Circuit open for " + uri.getHost(), null, null, false, Outcome.SKIPPED);
+                }
+                int status = response.statusCode();
+                String location = status >= 300 && status < 400
+                        ? response.headers().firstValue("Location").orElse(null) : null;
+                if (location == null || hop >= maxRedirects) {
+                    return new Result(url, current, status, method, redirects, elapsed(startedAt), null,
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null), false);
+                }
+                redirects.add(status + " " + current);
+                current = uri.resolve(location).toString();
+            }
+        } catch (HttpConnectTimeoutException e) {
+            // Nothing answered at all: a dead or blackholed host, not a busy one
+            return new Result(url, current, -1, method, redirects, elapsed(startedAt), e.getClass().getSimpleName()
+                    + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+        } catch (HttpTimeoutException e) {
+            return new Result(url, current, -1, method, redirects, elapsed(startedAt), e.getClass().getSimpleName()
+                    + (e.getMessage() == null ? "" : ": " + e.getMessage()), null, null, false, Outcome.THROTTLED);
+        } catch (IOException | IllegalArgumentException e) {
+            return new Result(url, current, -1, method, redirects, elapsed(startedAt), e.getClass().getSimpleName()
+                    + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(url, current, -1, method, redirects, elapsed(startedAt), "Interrupted");
+        }
+    }
+
+    private HttpResponse<InputStream> send(URI uri, String method, String etag, String lastModified)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", userAgent);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        if ("HEAD".equals(method)) {
+            request.method("HEAD", HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.GET().header("Range", "bytes=0-0");
+        }
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        LinkThrottle.Permit permit = null;
+        if (LinkThrottle.isEnabled()) {
+            permit = LinkThrottle.getInstance().acquire(host);
+            if (permit == null) {
+                return null;
+            }
+        }
+        boolean reported = false;
+        try {
+            HttpResponse<InputStream> response;
+            try {
+                response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (HttpTimeoutException e) {
+                // Connected but not answered in time counts toward the circuit; an unreachable host does not
+                if (permit != null && !(e instanceof HttpConnectTimeoutException)) {
+                    LinkThrottle.getInstance().onFailure(permit);
+                    reported = true;
+                }
+                throw e;
+            }
+            // Closing without reading abandons any body the server sends despite HEAD/Range
+            response.body().close();
+            if (permit != null) {
+                LinkThrottle.getInstance().onResponse(permit, response.statusCode(), retryAfterSeconds(response));
+                reported = true;
+            }
+            return response;
+        } finally {
+            if (permit != null && !reported) {
+                // Any other failure gives a half-open trial back instead of leaving it taken
+                LinkThrottle.getInstance().release(permit);
+            }
+        }
+    }
+
+    /**
+     * Retry-After in seconds (delta-seconds form only), or -1
+     */
+    private static long retryAfterSeconds(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After").map(value -> Long.parseLong(value.trim())).orElse(-1L);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long elapsed(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    /**
+     * SSL context trusting every certificate for every host name
+     *
+     * An X509ExtendedTrustManager is used because JSSE wraps a plain X509TrustManager
+     * and still verifies the host name; this one is asked for both checks and skips them.
+     */
+    private static SSLContext trustAllContext() {
+        TrustManager[] trustAll = {new X509ExtendedTrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+            }
+
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        }};
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustAll, new SecureRandom());
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create relaxed SSL context", e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * LinkPipeline - One-Pass Extract, Deduplicate and Validate Pipeline for Links
+ *
+ * Link checks used to run in three passes over a CSV file: extraction wrote it,
+ * validation re-read and re-split it, and the duplicate check read it once more,
+ * with a plain split(",") that broke on commas in link text. A LinkPipeline keeps
+ * the links in memory instead. Each link handed to submit() is normalized, checked
+ * against the links seen so far and, the first time its URL appears, sent straight
+ * to a ConcurrentLinkValidator, so validation runs while extraction continues.
+ *
+ * Key Features:
+ * - Duplicate detection on the normalized URL (case-insensitive host, no fragment,
+ *   no default port), keeping every occurrence for the report
+ * - Each distinct URL validated once, starting as soon as it is submitted
+ * - Optional side output through RecordSink (CSV with RFC 4180 quoting and a header row, or NDJSON)
+ * - Report in extraction order: broken, unverified (throttled/skipped) and duplicate links
+ *
+ * Links without an href are kept in the side output but neither validated nor
+ * counted as duplicates.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class LinkPipeline implements Closeable {
+
+    /**
+     * Column names of the CSV side output
+     */
+    public static final List<String> CSV_HEADER = Collections.unmodifiableList(Arrays.asList("Category", "Link Text", "Href"));
+
+    /**
+     * One extracted link
+     */
+    public static final class Link {
+        private final String category;
+        private final String text;
+        private final String href;
+        private final String key;
+        private final CompletableFuture<LinkCheckClient.Result> result;
+
+        private Link(String category, String text, String href, String key, CompletableFuture<LinkCheckClient.Result> result) {
+            this.category = category;
+            this.text = text;
+            this.href = href;
+            this.key = key;
+            this.result = result;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getHref() {
+            return href;
+        }
+
+        /**
+         * @return Normalized URL used for duplicate detection, or null without an href
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return Check result (waits for it), or null for a link without an href
+         */
+        public LinkCheckClient.Result getResult() {
+            return result == null ? null : result.join();
+        }
+    }
+
+    /**
+     * Everything the pipeline found, in extraction order
+     */
+    public static final class Report {
+        private final List<Link> links;
+        private final Map<String, List<Link>> duplicates;
+
+        private Report(List<Link> links, Map<String, List<Link>> duplicates) {
+            this.links = Collections.unmodifiableList(links);
+            this.duplicates = Collections.unmodifiableMap(duplicates);
+        }
+
+        public List<Link> getLinks() {
+            return links;
+        }
+
+        /**
+         * @return Links whose check came back BROKEN
+         */
+        public List<Link> getBrokenLinks() {
+            return withOutcome(LinkCheckClient.Outcome.BROKEN);
+        }
+
+        /**
+         * @return Links whose state is unknown (THROTTLED or SKIPPED)
+         */
+        public List<Link> getUnverifiedLinks() {
+            List<Link> unverified = withOutcome(LinkCheckClient.Outcome.THROTTLED);
+            unverified.addAll(withOutcome(LinkCheckClient.Outcome.SKIPPED));
+            return unverified;
+        }
+
+        /**
+         * @return Every occurrence of each URL that appears more than once, keyed by normalized URL
+         */
+        public Map<String, List<Link>> getDuplicates() {
+            return duplicates;
+        }
+
+        private List<Link> withOutcome(LinkCheckClient.Outcome outcome) {
+            List<Link> matching = new ArrayList<>();
+            for (Link link : links) {
+                LinkCheckClient.Result result = link.getResult();
+                if (result != null && result.getOutcome() == outcome) {
+                    matching.add(link);
+                }
+            }
+            return matching;
+        }
+    }
+
+    private final ConcurrentLinkValidator validator;
+    private final RecordSink sideOutput;
+
+    private final List<Link> links = new ArrayList<>();
+    private final Map<String, List<Link>> byKey = new LinkedHashMap<>();
+
+    /**
+     * Creates a pipeline validating with the configured ConcurrentLinkValidator
+     *
+     * @param sideOutput Sink with the CSV_HEADER fields receiving every link (CSV gets a header row), or null
+     * @throws IOException if the header cannot be written
+     */
+    public LinkPipeline(RecordSink sideOutput) throws IOException {
+        this(new ConcurrentLinkValidator(), sideOutput);
+    }
+
+    /**
+     * @param validator Validator the links are submitted to; closed with the pipeline
+     * @param sideOutput Sink with the CSV_HEADER fields receiving every link (CSV gets a header row), or null
+     * @throws IOException if the header cannot be written
+     */
+    public LinkPipeline(ConcurrentLinkValidator validator, RecordSink sideOutput) throws IOException {
+        this.validator = validator;
+        this.sideOutput = sideOutput;
+        if (sideOutput != null && sideOutput.getFormat() == RecordSink.Format.CSV) {
+            sideOutput.write(CSV_HEADER);
+        }
+    }
+
+    /**
+     * Adds one extracted link; its validation starts immediately unless the URL was seen before
+     *
+     * @param category Group the link belongs to (e.g. footer column heading)
+     * @param text Link text
+     * @param href Absolute link target, or null/empty
+     * @return The recorded link
+     * @throws IOException if the side output cannot be written
+     */
+    public synchronized Link submit(String category, String text, String href) throws IOException {
+        String target = href == null ? "" : href.trim();
+        Link link;
+        if (target.isEmpty()) {
+            link = new Link(category, text, target, null, null);
+        } else {
+            String key = LinkCheckCache.normalize(target);
+            List<Link> seen = byKey.computeIfAbsent(key, k -> new ArrayList<>());
+            CompletableFuture<LinkCheckClient.Result> result = seen.isEmpty() ? validator.submit(target) : seen.get(0).result;
+            link = new Link(category, text, target, key, result);
+            seen.add(link);
+        }
+        links.add(link);
+        if (sideOutput != null) {
+            sideOutput.write(Arrays.asList(category, text, target));
+        }
+        return link;
+    }
+
+    /**
+     * Waits for every validation, closes the side output and the validator
+     *
+     * @return Report over all submitted links
+     * @throws IOException if the side output cannot be closed
+     */
+    public synchronized Report finish() throws IOException {
+        try {
+            Map<String, List<Link>> duplicates = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Link>> entry : byKey.entrySet()) {
+                entry.getValue().get(0).getResult();
+                if (entry.getValue().size() > 1) {
+                    duplicates.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+                }
+            }
+            return new Report(new ArrayList<>(links), duplicates);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Closes the side output and stops validations that are still running
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sideOutput != null) {
+                sideOutput.close();
+            }
+        } finally {
+            validator.close();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * LinkThrottle - Per-Host Rate Limiting and Circuit Breaking for Link Checks
+ *
+ * Firing hundreds of link checks at one CDN gets the checker throttled (429/503,
+ * stalled connections), and once that happens every further request to the host
+ * only makes it worse. Every request LinkCheckClient sends first passes through
+ * this class, which keeps two pieces of state per host:
+ *
+ * Token Bucket:
+ * - links.throttle.requestsPerSecond tokens per second, up to links.throttle.burst
+ * - A request waits for its token; a Retry-After header pauses the whole host
+ *
+ * Circuit Breaker:
+ * - Closed: requests flow; links.circuit.failureThreshold throttled responses or
+ *   response timeouts in a row (429, 503, no answer in time) open it. Refused or
+ *   unreachable connections do not: they are broken links, not an overloaded host
+ * - Open: requests are skipped without touching the network for links.circuit.openSeconds
+ * - Half-open: one trial request; success closes the circuit, failure reopens it.
+ *   Only the trial's own outcome counts: a request that was already in flight when
+ *   the circuit opened neither closes nor reopens it
+ *
+ * Configuration:
+ * - links.throttle.enabled: rate limit and circuit-break link checks (default true)
+ * - links.throttle.requestsPerSecond: sustained requests per host (default 5)
+ * - links.throttle.burst: requests a host may receive at once (default 10)
+ * - links.throttle.maxRetryAfterSeconds: longest Retry-After pause honoured (default 30)
+ * - links.circuit.failureThreshold: consecutive failures that open a circuit (default 5)
+ * - links.circuit.openSeconds: how long a circuit stays open (default 30)
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class LinkThrottle {
+
+    /**
+     * Permission to send one request, returned by {@link #acquire(String)} and handed
+     * back with the request's outcome
+     */
+    public static final class Permit {
+        private final String host;
+        private final boolean trial;
+
+        private Permit(String host, boolean trial) {
+            this.host = host;
+            this.trial = trial;
+        }
+
+        /**
+         * @return Host the request goes to
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return true if this is the half-open circuit's trial request
+         */
+        public boolean isTrial() {
+            return trial;
+        }
+    }
+
+    /**
+     * Rate limiter and circuit breaker state of one host
+     */
+    private static final class Host {
+        // Token bucket; tokens may go negative, which reserves future tokens for waiting callers
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil = refilledAt;
+
+        // Circuit breaker
+        private int consecutiveFailures;
+        private boolean open;
+        private long openUntil;
+        private boolean trialInFlight;
+
+        // Reported counters
+        private int requests;
+        private int throttled;
+        private int skipped;
+        private int circuitOpens;
+
+        private Host(double burst) {
+            this.tokens = burst;
+        }
+    }
+
+    // Lazily created singleton shared by every thread in the JVM
+    private static volatile LinkThrottle instance;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final long maxRetryAfterNanos;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    LinkThrottle() {
+        this(Math.max(0.1, Double.parseDouble(ConfigReader.getProperty("links.throttle.requestsPerSecond", "5"))),
+                Math.max(1, ConfigReader.getIntProperty("links.throttle.burst", 10)),
+                TimeUnit.SECONDS.toNanos(Math.max(0, ConfigReader.getIntProperty("links.throttle.maxRetryAfterSeconds", 30))),
+                Math.max(1, ConfigReader.getIntProperty("links.circuit.failureThreshold", 5)),
+                TimeUnit.SECONDS.toNanos(Math.max(1, ConfigReader.getIntProperty("links.circuit.openSeconds", 30))));
+    }
+
+    // Explicit settings, so tests can use sub-second open periods
+    LinkThrottle(double permitsPerSecond, double burst, long maxRetryAfterNanos, int failureThreshold, long openNanos) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxRetryAfterNanos = maxRetryAfterNanos;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * Returns the JVM wide throttle, creating it on first use
+     *
+     * @return Shared LinkThrottle instance
+     */
+    public static LinkThrottle getInstance() {
+        if (instance == null) {
+            synchronized (LinkThrottle.class) {
+                if (instance == null) {
+                    instance = new LinkThrottle();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Checks whether link checks should be rate limited and circuit-broken
+     *
+     * @return true unless links.throttle.enabled is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("links.throttle.enabled", true);
+    }
+
+    /**
+     * Waits for permission to send one request to a host
+     *
+     * Every permit returned must be handed back to exactly one of onResponse(),
+     * onFailure() or release().
+     *
+     * @param host Lower-case host name
+     * @return Permit once the request may be sent, null if the host's circuit is open (skip it)
+     * @throws InterruptedException if interrupted while waiting for a token
+     */
+    public Permit acquire(String host) throws InterruptedException {
+        Host state = hosts.computeIfAbsent(host, h -> new Host(burst));
+        long waitNanos;
+        boolean trial;
+        synchronized (state) {
+            long now = System.nanoTime();
+            if (state.open && (now - state.openUntil < 0 || state.trialInFlight)) {
+                state.skipped++;
+                return null;
+            }
+            trial = state.open;
+            if (trial) {
+                // Open period over: let exactly one trial request through (half-open)
+                state.trialInFlight = true;
+            }
+            state.tokens = Math.min(burst, state.tokens + (now - state.refilledAt) / 1e9 * permitsPerSecond);
+            state.refilledAt = now;
+            state.tokens -= 1;
+            state.requests++;
+            waitNanos = Math.max(state.tokens < 0 ? (long) (-state.tokens / permitsPerSecond * 1e9) : 0,
+                    state.pausedUntil - now);
+        }
+        Permit permit = new Permit(host, trial);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                release(permit);
+                throw e;
+            }
+        }
+        return permit;
+    }
+
+    /**
+     * Ends a request sent after {@link #acquire(String)} that says nothing about the host's load
+     *
+     * Must be called when neither onResponse() nor onFailure() is (connection refused,
+     * bad request, unexpected exception), so a half-open trial is given back and the
+     * next request can try again instead of the host being skipped for good.
+     *
+     * @param permit Permit returned by acquire()
+     */
+    public void release(Permit permit) {
+        if (!permit.trial) {
+            return;
+        }
+        Host state = hosts.computeIfAbsent(permit.host, h -> new Host(burst));
+        synchronized (state) {
+            state.trialInFlight = false;
+        }
+    }
+
+    /**
+     * Records the response of a request sent after {@link #acquire(String)}
+     *
+     * @param permit Permit returned by acquire()
+     * @param statusCode HTTP status of the response
+     * @param retryAfterSeconds Retry-After header in seconds, or -1 if absent
+     */
+    public void onResponse(Permit permit, int statusCode, long retryAfterSeconds) {
+        Host state = hosts.computeIfAbsent(permit.host, h -> new Host(burst));
+        synchronized (state) {
+            if (retryAfterSeconds > 0) {
+                state.pausedUntil = Math.max(state.pausedUntil,
+                        System.nanoTime() + Math.min(maxRetryAfterNanos, TimeUnit.SECONDS.toNanos(retryAfterSeconds)));
+            }
+            if (isThrottled(statusCode)) {
+                state.throttled++;
+                failed(state, permit);
+            } else if (permit.trial) {
+                // The trial got through: close the circuit
+                state.consecutiveFailures = 0;
+                state.open = false;
+                state.trialInFlight = false;
+            } else if (!state.open) {
+                state.consecutiveFailures = 0;
+            }
+        }
+    }
+
+    /**
+     * Records a request the host did not answer in time (request timeout)
+     *
+     * @param permit Permit returned by acquire()
+     */
+    public void onFailure(Permit permit) {
+        Host state = hosts.computeIfAbsent(permit.host, h -> new Host(burst));
+        synchronized (state) {
+            state.throttled++;
+            failed(state, permit);
+        }
+    }
+
+    /**
+     * @param statusCode HTTP status
+     * @return true for statuses servers use to push back (429 Too Many Requests, 503 Service Unavailable)
+     */
+    public static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    /**
+     * @return Per-host requests, throttled responses, skipped checks and circuit openings;
+     *         empty if no host was throttled
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Host> entry : new TreeMap<>(hosts).entrySet()) {
+            Host state = entry.getValue();
+            synchronized (state) {
+                if (state.throttled == 0 && state.skipped == 0) {
+                    continue;
+                }
+                summary.append(entry.getKey()).append(": requests=").append(state.requests)
+                        .append(", throttled/failed=").append(state.throttled)
+                        .append(", skipped=").append(state.skipped)
+                        .append(", circuit opened=").append(state.circuitOpens).append('\n');
+            }
+        }
+        return summary.toString();
+    }
+
+    private void failed(Host state, Permit permit) {
+        if (state.open && !permit.trial) {
+            // Sent before the circuit opened; only the trial decides what happens next
+            return;
+        }
+        state.consecutiveFailures++;
+        if (permit.trial || state.consecutiveFailures >= failureThreshold) {
+            state.open = true;
+            state.openUntil = System.nanoTime() + openNanos;
+            state.trialInFlight = false;
+            state.consecutiveFailures = 0;
+            state.circuitOpens++;
+        }
+    }
+}
@@ -2,15 +2,19 @@
  * LinkValidationUtil - URL Accessibility and Link Validation Utility
  * 
  * This utility class provides methods to validate URL accessibility and check
- * if web links are working properly. It uses RestAssured library to perform
- * HTTP requests and validate response status codes.
+ * if web links are working properly. Requests go through the shared
+ * LinkCheckClient, which probes with HEAD first, applies connect and request
+ * timeouts and reuses pooled keep-alive connections. Results of working links
+ * are kept in LinkCheckCache, so repeated runs only re-check what is stale.
  * 
  * Key Features:
- * - URL accessibility validation using HTTP GET requests
+ * - URL accessibility validation using HEAD (ranged GET fallback) requests
  * - Support for both HTTP and HTTPS URLs with relaxed SSL validation
- * - Status code validation (200 OK, 403 Forbidden considered valid)
+ * - Status code validation (2xx OK, 403 Forbidden considered valid)
  * - Comprehensive error handling for network issues
  * - Static methods for easy integration in test scenarios
+ * - Thread-safe: no shared state, so links can be checked concurrently
+ *   (see ConcurrentLinkValidator)
  * 
  * Common Use Cases:
  * - Validating footer links on web pages
@@ -20,7 +24,7 @@
  * - Broken link detection
  * 
  * Supported Status Codes:
- * - 200 (OK): Link is accessible and working
+ * - 2xx (OK, Partial Content): Link is accessible and working
  * - 403 (Forbidden): Link exists but access is restricted (considered valid)
  * - Other codes: Considered as broken or inaccessible links
  * 
@@ -30,70 +34,50 @@
  */
 package org.veeva.utilities;
 
-import io.restassured.RestAssured;
-import io.restassured.response.Response;
-
 public class LinkValidationUtil {
-    
-    // Static Response object to store the last HTTP response for debugging
-    static Response response;
-    
+
     /**
      * Validates if a URL is accessible and working
      * 
-     * This method performs an HTTP GET request to the specified URL and checks
-     * the response status code to determine if the link is working. It uses
-     * relaxed HTTPS validation to handle SSL certificate issues.
+     * This method probes the specified URL through LinkCheckClient (HEAD, or a
+     * GET for the first byte when HEAD is refused), follows redirects and checks
+     * the final status code to determine if the link is working.
      * 
      * Validation Logic:
-     * - Status Code 200 (OK): Link is fully accessible
+     * - Status Code 2xx: Link is fully accessible
      * - Status Code 403 (Forbidden): Link exists but access restricted (valid)
      * - Other status codes: Link is considered broken or inaccessible
-     * - Network exceptions: Link is considered broken
+     * - Network exceptions and timeouts: Link is considered broken
      * 
      * Features:
      * - Relaxed HTTPS validation to handle self-signed certificates
-     * - Exception handling for network connectivity issues
+     * - Connect/request timeouts (links.check.*), so a hanging link fails fast
      * - Support for both HTTP and HTTPS protocols
-     * - Response caching for debugging purposes
+     * - Safe to call from several threads at once
      * 
      * @param url The URL to validate (must include protocol: http:// or https://)
-     * @return true if URL is accessible (status 200 or 403), false otherwise
+     * @return true if URL is accessible (status 2xx or 403), false otherwise
      * 
      * Usage Examples:
      * - boolean isWorking = LinkValidationUtil.isUrlWorking("https://example.com");
      * - boolean isValid = LinkValidationUtil.isUrlWorking("http://api.example.com/health");
      */
     public static boolean isUrlWorking(String url) {
-        try {
-            // Configure RestAssured to use relaxed HTTPS validation
-            // This allows testing of URLs with self-signed or invalid SSL certificates
-            RestAssured.useRelaxedHTTPSValidation();
-            
-            // Perform HTTP GET request to the specified URL
-            response = RestAssured
-                    .given()
-                        // Enable relaxed HTTPS validation for this request
-                        .relaxedHTTPSValidation()
-                    .when()
-                        // Send GET request to the URL
-                        .get(url)
-                    .then()
-                        // Extract the response for status code checking
-                        .extract()
-                        .response();
-            
-            // Get the HTTP status code from the response
-            int statusCode = response.getStatusCode();
-            
-            // Consider URL working if status is 200 (OK) or 403 (Forbidden)
-            // 403 is considered valid because the URL exists but access is restricted
-            return (statusCode == 200) || (statusCode == 403);
-            
-        } catch (Exception e) {
-            // Handle any exceptions during HTTP request (network issues, timeouts, etc.)
-            // Return false for any exception (URL is considered broken)
-            return false;
+        return checkUrl(url).isWorking();
+    }
+
+    /**
+     * Checks a URL and returns the details behind the verdict
+     * 
+     * Goes through LinkCheckCache unless links.cache.enabled is false.
+     * 
+     * @param url The URL to check (must include protocol: http:// or https://)
+     * @return Status, final URL, redirect chain, timing and error of the check
+     */
+    public static LinkCheckClient.Result checkUrl(String url) {
+        if (LinkCheckCache.isEnabled()) {
+            return LinkCheckCache.getInstance().check(url);
         }
+        return LinkCheckClient.getInstance().check(url);
     }
 }
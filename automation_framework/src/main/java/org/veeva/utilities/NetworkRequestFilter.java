@@ -0,0 +1,235 @@
+/**
+ * NetworkRequestFilter - Per-Scenario Blocking of Ads, Trackers and Heavy Media
+ *
+ * This class intercepts browser requests through the Chrome DevTools Protocol
+ * (Selenium's NetworkInterceptor) and answers requests that match a blocked
+ * category with an empty response, so third-party ads, analytics beacons,
+ * video streams and web fonts never load during a scenario.
+ *
+ * Key Features:
+ * - Named categories of host/URL substrings configured in config.properties
+ * - Scenario tags to opt in or out of a category (@Allow<Category>, @Block<Category>)
+ * - @NoRequestBlocking tag to disable filtering for a scenario entirely
+ * - Blocked request counters per category plus a configured bytes-saved estimate
+ * - Summary attached to the Allure report when the filter is stopped
+ *
+ * Configuration:
+ * - network.filter.enabled: master switch (default true)
+ * - network.filter.categories: categories blocked by default (e.g. ads,analytics,video,fonts)
+ * - network.filter.<category>: comma separated URL substrings for the category
+ * - network.filter.avgBytes.<category>: typical response size used for the bytes-saved estimate
+ *
+ * Blocked requests are answered inside the browser, so their real size is never
+ * seen: the bytes-saved figure is blocked count x configured average, labelled as
+ * such in the report, and left out for categories without a configured average.
+ *
+ * Tag Examples:
+ * - @AllowAds: keep ads loading for a scenario that needs an ad element
+ * - @BlockImages: additionally block images for a scenario
+ *
+ * Limitations: Interception requires a Chromium based browser (HasDevTools)
+ * and applies to the tab that is active when the scenario starts.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NetworkRequestFilter implements AutoCloseable {
+
+    // Tag that switches request blocking off for a scenario
+    private static final String DISABLE_TAG = "@norequestblocking";
+
+    // Every category that can be referenced from tags or network.filter.categories
+    private static final String[] KNOWN_CATEGORIES = {"ads", "analytics", "video", "fonts", "images"};
+
+    // Active categories mapped to their lower-case URL substrings, in match order
+    private final Map<String, List<String>> blockedPatterns;
+
+    // Number of blocked requests per category, updated from DevTools threads
+    private final Map<String, AtomicInteger> blockedCounts = new ConcurrentHashMap<>();
+
+    // Underlying CDP interceptor; null when the browser does not support DevTools
+    private NetworkInterceptor interceptor;
+
+    private NetworkRequestFilter(Map<String, List<String>> blockedPatterns) {
+        this.blockedPatterns = blockedPatterns;
+        for (String category : blockedPatterns.keySet()) {
+            blockedCounts.put(category, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Starts request blocking on the given driver for a scenario
+     *
+     * @param driver WebDriver of the scenario (must support DevTools to be filtered)
+     * @param scenarioTags Source tag names of the scenario (e.g. "@AllowAds")
+     * @return Started filter, or null if filtering is disabled or unsupported
+     */
+    public static NetworkRequestFilter start(WebDriver driver, Collection<String> scenarioTags) {
+        if (!ConfigReader.getBooleanProperty("network.filter.enabled", true) || !(driver instanceof HasDevTools)) {
+            return null;
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        for (String tag : scenarioTags) {
+            tags.add(tag.toLowerCase(Locale.ROOT));
+        }
+        if (tags.contains(DISABLE_TAG)) {
+            return null;
+        }
+
+        Set<String> categories = resolveCategories(tags);
+        Map<String, List<String>> patterns = new LinkedHashMap<>();
+        for (String category : categories) {
+            List<String> categoryPatterns = loadPatterns(category);
+            if (!categoryPatterns.isEmpty()) {
+                patterns.put(category, categoryPatterns);
+            }
+        }
+        if (patterns.isEmpty()) {
+            return null;
+        }
+
+        NetworkRequestFilter filter = new NetworkRequestFilter(patterns);
+        try {
+            Filter blocking = next -> request -> {
+                String category = filter.matchCategory(request.getUri());
+                if (category == null) {
+                    return next.execute(request);
+                }
+                // Answer locally with an empty response - the request never leaves the browser
+                filter.blockedCounts.get(category).incrementAndGet();
+                return new HttpResponse().setStatus(204);
+            };
+            filter.interceptor = new NetworkInterceptor(driver, blocking);
+        } catch (Exception e) {
+            // DevTools version mismatch or unsupported target - run the scenario unfiltered
+            AllureReportUtils.attachTextToAllure("Request Blocking", "Not active: " + e.getMessage());
+            return null;
+        }
+        return filter;
+    }
+
+    /**
+     * Stops interception and attaches the blocked request summary to Allure
+     */
+    @Override
+    public void close() {
+        try {
+            if (interceptor != null) {
+                interceptor.close();
+            }
+        } catch (Exception ignored) {
+            // Browser already gone - nothing left to detach from
+        } finally {
+            interceptor = null;
+            AllureReportUtils.attachTextToAllure("Blocked Network Requests (bytes saved: configured estimate)", getSummary());
+        }
+    }
+
+    /**
+     * @return Number of requests blocked so far, per category
+     */
+    public Map<String, Integer> getBlockedCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String category : blockedPatterns.keySet()) {
+            counts.put(category, blockedCounts.get(category).get());
+        }
+        return counts;
+    }
+
+    /**
+     * Builds a per-category report of blocked requests and estimated bytes saved
+     *
+     * Blocked requests never produce a response, so bytes saved are not measured
+     * but estimated from network.filter.avgBytes.&lt;category&gt;. Categories without
+     * a configured average are reported as "not estimated" rather than 0 KB.
+     *
+     * @return Multi-line summary suitable for an Allure text attachment
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        int totalRequests = 0;
+        long totalBytes = 0;
+        List<String> notEstimated = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : getBlockedCounts().entrySet()) {
+            int averageBytes = ConfigReader.getIntProperty("network.filter.avgBytes." + entry.getKey(), -1);
+            totalRequests += entry.getValue();
+            summary.append(entry.getKey()).append(": ").append(entry.getValue()).append(" requests, ");
+            if (averageBytes < 0) {
+                notEstimated.add(entry.getKey());
+                summary.append("bytes not estimated (no network.filter.avgBytes.").append(entry.getKey()).append(")\n");
+            } else {
+                long bytes = (long) entry.getValue() * averageBytes;
+                totalBytes += bytes;
+                summary.append("~").append(bytes / 1024).append(" KB (configured estimate)\n");
+            }
+        }
+        summary.append("Total blocked: ").append(totalRequests)
+                .append(" requests, estimated ").append(totalBytes / 1024)
+                .append(" KB saved (blocked count x configured average size, not measured)");
+        if (!notEstimated.isEmpty()) {
+            summary.append(", excluding ").append(String.join(", ", notEstimated));
+        }
+        return summary.toString();
+    }
+
+    private String matchCategory(String url) {
+        String lowerUrl = url.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, List<String>> entry : blockedPatterns.entrySet()) {
+            for (String pattern : entry.getValue()) {
+                if (lowerUrl.contains(pattern)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Set<String> resolveCategories(Set<String> tags) {
+        Set<String> categories = new LinkedHashSet<>();
+        for (String category : ConfigReader.getProperty("network.filter.categories", "").split(",")) {
+            if (!category.trim().isEmpty()) {
+                categories.add(category.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        // Scenario tags override the configured defaults
+        for (String category : KNOWN_CATEGORIES) {
+            if (tags.contains("@block" + category)) {
+                categories.add(category);
+            }
+            if (tags.contains("@allow" + category)) {
+                categories.remove(category);
+            }
+        }
+        return categories;
+    }
+
+    private static List<String> loadPatterns(String category) {
+        List<String> patterns = new ArrayList<>();
+        for (String pattern : ConfigReader.getProperty("network.filter." + category, "").split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                patterns.add(pattern.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return patterns;
+    }
+}
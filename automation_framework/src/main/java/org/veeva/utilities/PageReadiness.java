@@ -0,0 +1,185 @@
+/**
+ * PageReadiness - DOM-Ready plus Network-Idle Page Readiness Engine
+ *
+ * With the "eager" or "none" page-load strategy, driver.get() returns as soon as
+ * the DOM is parsed instead of waiting for every ad iframe and tracker to finish.
+ * This class then decides when the page is actually usable: the document is no
+ * longer loading and no relevant network request has been in flight for a
+ * configurable quiet period.
+ *
+ * Key Features:
+ * - In-page request tracker (fetch + XMLHttpRequest) installed before page scripts run
+ * - Network-idle detection within page.ready.idleMillis of the last request
+ * - Ignored hosts and long-poll detection so sockets/beacons never block readiness
+ * - Resource Timing fallback for browsers or tabs without the tracker
+ * - Soft timeout: a page that never goes idle is reported, not failed
+ *
+ * Configuration:
+ * - driver.pageLoadStrategy: normal, eager or none (default eager)
+ * - page.ready.idleMillis: quiet period that counts as network idle (default 500)
+ * - page.ready.timeoutSeconds: maximum time spent waiting for readiness (default 15)
+ * - page.ready.longPollMillis: requests open longer than this are treated as long-polls (default 5000)
+ * - page.ready.ignoredHosts: comma separated URL substrings never waited for
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PageReadiness {
+
+    // Script evaluated on every new document: counts in-flight fetch/XHR requests
+    // and remembers when network activity was last seen
+    private static final String TRACKER_SCRIPT =
+            "(function () {"
+            + "  if (window.__pageReadiness) { return; }"
+            + "  var ignored = %s;"
+            + "  var longPollMs = %d;"
+            + "  var inFlight = {}, seq = 0, lastActivity = performance.now();"
+            + "  function isIgnored(url) {"
+            + "    var u = String(url || '');"
+            + "    for (var i = 0; i < ignored.length; i++) { if (u.indexOf(ignored[i]) >= 0) { return true; } }"
+            + "    return false;"
+            + "  }"
+            + "  function begin(url) {"
+            + "    if (isIgnored(url)) { return -1; }"
+            + "    var id = ++seq; inFlight[id] = performance.now(); lastActivity = performance.now(); return id;"
+            + "  }"
+            + "  function end(id) { if (id >= 0) { delete inFlight[id]; lastActivity = performance.now(); } }"
+            + "  if (window.fetch) {"
+            + "    var originalFetch = window.fetch;"
+            + "    window.fetch = function (input) {"
+            + "      var id = begin(input && input.url ? input.url : input);"
+            + "      return originalFetch.apply(this, arguments).then("
+            + "        function (response) { end(id); return response; },"
+            + "        function (error) { end(id); throw error; });"
+            + "    };"
+            + "  }"
+            + "  var originalOpen = XMLHttpRequest.prototype.open, originalSend = XMLHttpRequest.prototype.send;"
+            + "  XMLHttpRequest.prototype.open = function (method, url) { this.__readinessUrl = url; return originalOpen.apply(this, arguments); };"
+            + "  XMLHttpRequest.prototype.send = function () {"
+            + "    var id = begin(this.__readinessUrl);"
+            + "    this.addEventListener('loadend', function () { end(id); });"
+            + "    return originalSend.apply(this, arguments);"
+            + "  };"
+            + "  try {"
+            + "    new PerformanceObserver(function (list) {"
+            + "      list.getEntries().forEach(function (entry) { if (!isIgnored(entry.name)) { lastActivity = performance.now(); } });"
+            + "    }).observe({type: 'resource', buffered: true});"
+            + "  } catch (e) {}"
+            + "  window.__pageReadiness = {"
+            + "    pending: function () {"
+            + "      var now = performance.now(), count = 0;"
+            + "      for (var id in inFlight) { if (now - inFlight[id] < longPollMs) { count++; } }"
+            + "      return count;"
+            + "    },"
+            + "    idleFor: function () { return performance.now() - lastActivity; }"
+            + "  };"
+            + "})();";
+
+    // Readiness check: DOM parsed and network idle for arguments[0] ms.
+    // Falls back to Resource Timing when the tracker is not installed in this document.
+    private static final String READY_CHECK_SCRIPT =
+            "var idleMs = arguments[0], ignored = arguments[1];"
+            + "if (document.readyState === 'loading') { return false; }"
+            + "var tracker = window.__pageReadiness;"
+            + "if (tracker) { return tracker.pending() === 0 && tracker.idleFor() >= idleMs; }"
+            + "var lastEnd = 0, entries = performance.getEntriesByType('resource');"
+            + "for (var i = 0; i < entries.length; i++) {"
+            + "  var skip = false;"
+            + "  for (var j = 0; j < ignored.length; j++) { if (entries[i].name.indexOf(ignored[j]) >= 0) { skip = true; break; } }"
+            + "  if (!skip) { lastEnd = Math.max(lastEnd, entries[i].responseEnd); }"
+            + "}"
+            + "return performance.now() - lastEnd >= idleMs;";
+
+    /**
+     * Reads the configured page-load strategy for new browser sessions
+     *
+     * @return PageLoadStrategy from driver.pageLoadStrategy (default EAGER)
+     */
+    public static PageLoadStrategy configuredPageLoadStrategy() {
+        return PageLoadStrategy.fromString(ConfigReader.getProperty("driver.pageLoadStrategy", "eager"));
+    }
+
+    /**
+     * Installs the in-page request tracker so it runs before any page script
+     *
+     * Only Chromium browsers support registering a script for every new document;
+     * other browsers rely on the Resource Timing fallback in the readiness check.
+     *
+     * @param driver Newly created WebDriver session
+     */
+    public static void installTracker(WebDriver driver) {
+        if (!(driver instanceof HasCdp)) {
+            return;
+        }
+        String source = String.format(TRACKER_SCRIPT,
+                toJsArray(ignoredHosts()), ConfigReader.getIntProperty("page.ready.longPollMillis", 5000));
+        try {
+            ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                    Collections.singletonMap("source", source));
+        } catch (Exception e) {
+            // Readiness still works through the Resource Timing fallback
+            System.err.println("Page readiness tracker not installed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Waits until the current page is DOM-ready and its network has gone idle
+     *
+     * A page that is still busy after page.ready.timeoutSeconds is reported to
+     * Allure and the scenario continues - readiness is a speed optimisation, the
+     * element waits in each step remain the real synchronisation points.
+     *
+     * @param driver WebDriver whose current page should be checked
+     */
+    public static void waitForPageReady(WebDriver driver) {
+        long idleMillis = ConfigReader.getIntProperty("page.ready.idleMillis", 500);
+        int timeoutSeconds = ConfigReader.getIntProperty("page.ready.timeoutSeconds", 15);
+        List<String> ignored = ignoredHosts();
+
+        WebDriverWait readinessWait = new WebDriverWait(driver, Duration.ofSeconds(timeoutSeconds));
+        readinessWait.pollingEvery(Duration.ofMillis(100));
+        try {
+            readinessWait.until(d -> Boolean.TRUE.equals(
+                    ((JavascriptExecutor) d).executeScript(READY_CHECK_SCRIPT, idleMillis, ignored)));
+        } catch (TimeoutException e) {
+            AllureReportUtils.attachTextToAllure("Page Readiness",
+                    "Network not idle after " + timeoutSeconds + "s on " + driver.getCurrentUrl() + " - continuing");
+        }
+    }
+
+    private static List<String> ignoredHosts() {
+        List<String> hosts = new ArrayList<>();
+        for (String host : ConfigReader.getProperty("page.ready.ignoredHosts", "").split(",")) {
+            if (!host.trim().isEmpty()) {
+                hosts.add(host.trim());
+            }
+        }
+        return hosts;
+    }
+
+    private static String toJsArray(List<String> values) {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                array.append(',');
+            }
+            array.append('\'').append(values.get(i).replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        }
+        return array.append(']').toString();
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * PaginationCrawler - Concurrent Multi-Tab Crawling of Paginated Listings
+ *
+ * Clicking "next" and waiting for each listing page makes extraction time grow
+ * with the number of pages. This class works out the URLs of all pages up front
+ * from the pagination links, loads several of them at the same time in background
+ * tabs of the current session and extracts each one as soon as it is ready. The
+ * browser fetches and renders the pages in parallel; WebDriver only switches
+ * between tabs that are already loaded.
+ *
+ * Key Features:
+ * - Page URL discovery from the "next page" link and the pagination links
+ * - Windowed pagination ("1 2 3 4 5 ›") followed: the last page found is checked
+ *   for links to later pages, which are then crawled as well
+ * - Sliding window of pagination.tabs tabs loading concurrently
+ * - Results merged in page order, duplicates (products shifting pages) removed
+ * - Streaming variant hands over each page's items as soon as they are extracted
+ * - Original tab restored and every opened tab closed, also on failure
+ *
+ * Configuration:
+ * - pagination.tabs: tabs loading pages at the same time (default 4, 1 disables)
+ *
+ * Pages are loaded in tabs rather than in extra pooled sessions: a WebDriver
+ * session belongs to one scenario thread, and a tab costs far less than a browser.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class PaginationCrawler {
+
+    // Finds the query parameter the "next" link changes and the highest page number
+    // linked from the page, then returns that parameter and the URLs of pages 2..last
+    private static final String DISCOVER_PAGES_SCRIPT =
+            "var next = arguments[0] && arguments[0].href ? new URL(arguments[0].href, location.href) : null;"
+            + "if (!next) { return null; }"
+            + "var current = new URL(location.href);"
+            + "var param = null;"
+            + "next.searchParams.forEach(function (value, key) {"
+            + "  if (param === null && /^\\d+$/.test(value) && current.searchParams.get(key) !== value) { param = key; }"
+            + "});"
+            + "if (param === null) { return null; }"
+            + "var last = parseInt(next.searchParams.get(param), 10);"
+            + "var links = document.querySelectorAll('a[href]');"
+            + "for (var i = 0; i < links.length; i++) {"
+            + "  var url = new URL(links[i].href, location.href);"
+            + "  var value = url.pathname === next.pathname ? parseInt(url.searchParams.get(param), 10) : NaN;"
+            + "  if (!isNaN(value) && value > last) { last = value; }"
+            + "}"
+            + "var first = parseInt(next.searchParams.get(param), 10);"
+            + "var urls = [];"
+            + "for (var page = first; page <= last; page++) {"
+            + "  next.searchParams.set(param, String(page));"
+            + "  urls.push(next.toString());"
+            + "}"
+            + "return {param: param, urls: urls};";
+
+    // On the last page crawled so far, returns the URLs of the later pages it links to
+    // (the "next" link included), so a pagination that only shows a window of page
+    // links is followed to its end
+    private static final String MORE_PAGES_SCRIPT =
+            "var param = arguments[0];"
+            + "var here = new URL(location.href);"
+            + "var current = parseInt(here.searchParams.get(param), 10);"
+            + "if (isNaN(current)) { return []; }"
+            + "var last = current;"
+            + "var links = document.querySelectorAll('a[href]');"
+            + "for (var i = 0; i < links.length; i++) {"
+            + "  var url = new URL(links[i].href, location.href);"
+            + "  var value = url.pathname === here.pathname ? parseInt(url.searchParams.get(param), 10) : NaN;"
+            + "  if (!isNaN(value) && value > last) { last = value; }"
+            + "}"
+            + "var urls = [];"
+            + "for (var page = current + 1; page <= last; page++) {"
+            + "  here.searchParams.set(param, String(page));"
+            + "  urls.push(here.toString());"
+            + "}"
+            + "return urls;";
+
+    private final WebDriver driver;
+
+    // Query parameter holding the page number, set by discoverPageUrls
+    private String pageParameter;
+
+    public PaginationCrawler(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Checks whether concurrent tab crawling is configured
+     *
+     * @return true if pagination.tabs is greater than 1
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getIntProperty("pagination.tabs", 4) > 1;
+    }
+
+    /**
+     * Works out the URLs of the remaining listing pages from the current page
+     *
+     * @param nextPageButton Link to the second page
+     * @return URLs of pages 2..last linked from this page, empty if the pagination
+     *         is not link based (the caller should then fall back to clicking
+     *         through the pages). Pages beyond the links shown here are found
+     *         while crawling.
+     */
+    public List<String> discoverPageUrls(WebElement nextPageButton) {
+        List<String> urls = new ArrayList<>();
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(DISCOVER_PAGES_SCRIPT, nextPageButton);
+            if (result instanceof Map) {
+                pageParameter = String.valueOf(((Map<?, ?>) result).get("param"));
+                urls.addAll(toStrings(((Map<?, ?>) result).get("urls")));
+            }
+        } catch (RuntimeException e) {
+            // No next link (single page) or script blocked: nothing to crawl concurrently
+            return new ArrayList<>();
+        }
+        return urls;
+    }
+
+    /**
+     * Extracts the current page and all given pages, loading pagination.tabs pages at a time
+     *
+     * @param pageUrls URLs of the following pages, in page order
+     * @param extractor Reads the items of the page the driver is switched to
+     * @param <T> Item type; equals() decides which items are duplicates
+     * @return Items of all pages in page order, without duplicates
+     */
+    public <T> List<T> crawl(List<String> pageUrls, Function<WebDriver, List<T>> extractor) {
+        Set<T> items = new LinkedHashSet<>();
+        crawl(pageUrls, extractor, items::addAll);
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Extracts the current page and all given pages, passing each page's items
+     * on in page order as soon as they are read
+     *
+     * Nothing is accumulated here, so memory use does not grow with the number
+     * of pages. Duplicates are not removed; the consumer decides. If the URLs
+     * came from discoverPageUrls, the last page is checked for links to later
+     * pages and those are crawled too.
+     *
+     * @param pageUrls URLs of the following pages, in page order
+     * @param extractor Reads the items of the page the driver is switched to
+     * @param pageConsumer Receives the items of one page at a time
+     * @param <T> Item type
+     */
+    public <T> void crawl(List<String> pageUrls, Function<WebDriver, List<T>> extractor, Consumer<List<T>> pageConsumer) {
+        int tabs = Math.max(1, ConfigReader.getIntProperty("pagination.tabs", 4));
+        String originalHandle = driver.getWindowHandle();
+        pageConsumer.accept(extractor.apply(driver));
+
+        Deque<String> pending = new ArrayDeque<>(pageUrls);
+        Deque<String> loading = new ArrayDeque<>();
+        try {
+            while (!pending.isEmpty() || !loading.isEmpty()) {
+                // Keep the window full so the browser always loads several pages in parallel
+                while (loading.size() < tabs && !pending.isEmpty()) {
+                    loading.addLast(openInBackgroundTab(pending.removeFirst()));
+                }
+                String handle = loading.removeFirst();
+                boolean lastKnownPage = pending.isEmpty() && loading.isEmpty();
+                List<T> pageItems;
+                try {
+                    driver.switchTo().window(handle);
+                    waitForNavigationStart();
+                    PageReadiness.waitForPageReady(driver);
+                    pageItems = extractor.apply(driver);
+                    if (lastKnownPage) {
+                        // Windowed pagination: the last page shown may link to further pages
+                        pending.addAll(morePageUrls());
+                    }
+                } finally {
+                    // No longer in loading, so close it here even if the page failed
+                    closeQuietly(handle);
+                    // New tabs can only be opened from a window that still exists
+                    driver.switchTo().window(originalHandle);
+                }
+                pageConsumer.accept(pageItems);
+            }
+        } finally {
+            for (String handle : loading) {
+                closeQuietly(handle);
+            }
+            driver.switchTo().window(originalHandle);
+        }
+    }
+
+    /**
+     * @return URLs of the pages after the one the driver is on, as linked from it
+     */
+    private List<String> morePageUrls() {
+        if (pageParameter == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return toStrings(((JavascriptExecutor) driver).executeScript(MORE_PAGES_SCRIPT, pageParameter));
+        } catch (JavascriptException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<String> toStrings(Object result) {
+        List<String> strings = new ArrayList<>();
+        if (result instanceof List) {
+            for (Object value : (List<?>) result) {
+                strings.add(String.valueOf(value));
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Opens a tab and starts navigating it without waiting for the page to load
+     *
+     * @return Window handle of the new tab
+     */
+    private String openInBackgroundTab(String url) {
+        String handle = driver.switchTo().newWindow(WindowType.TAB).getWindowHandle();
+        // location.assign returns immediately, unlike driver.get()
+        ((JavascriptExecutor) driver).executeScript("window.location.assign(arguments[0]);", url);
+        return handle;
+    }
+
+    /**
+     * Waits until the tab has left its initial about:blank document
+     *
+     * location.assign only requests the navigation. Until it commits, the tab
+     * still shows about:blank, which passes the readiness check (complete, no
+     * requests) and would be extracted as an empty page.
+     */
+    private void waitForNavigationStart() {
+        new WebDriverWait(driver, Duration.ofSeconds(ConfigReader.getIntProperty("page.ready.timeoutSeconds", 15)))
+                .pollingEvery(Duration.ofMillis(100))
+                .ignoring(JavascriptException.class)
+                .until(d -> !"about:blank".equals(((JavascriptExecutor) d).executeScript("return location.href;")));
+    }
+
+    private void closeQuietly(String handle) {
+        try {
+            driver.switchTo().window(handle).close();
+        } catch (RuntimeException ignored) {
+            // Tab already gone
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * SessionHealthMonitor - Dead Browser Detection and Crash Cleanup
+ *
+ * This class wraps every WebDriver session created by DriverFactory in a
+ * Selenium WebDriverDecorator that watches each command sent to the browser.
+ * When a renderer crashes, the browser becomes unreachable or a command hangs
+ * past its deadline, the session is marked dead, its local process tree is
+ * killed, and every later command fails immediately instead of burning a full
+ * WebDriverWait timeout against a browser that will never answer.
+ *
+ * Key Features:
+ * - Classifies driver exceptions that mean the session is gone (unreachable
+ *   browser, no such session, session not created, tab/target crashed)
+ * - Watchdog thread that treats commands running past
+ *   driver.health.commandDeadlineSeconds as a hung browser/driver
+ * - Kills the browser and driver process tree (local sessions only)
+ * - Fast NoSuchSessionException for commands on a session already known dead
+ *
+ * Configuration:
+ * - driver.health.enabled: master switch (default true)
+ * - driver.health.commandDeadlineSeconds: longest a single command may run (default 90)
+ *
+ * Recovery itself (replacement session, rerun marking) is driven from Hooks
+ * through {@link DriverFactory#recoverDriver()}.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionHealthMonitor extends WebDriverDecorator<WebDriver> {
+
+    // Exact error messages chromedriver/geckodriver use when the browser side is gone;
+    // generic words such as "disconnected" also turn up in errors that are not about the browser
+    private static final String[] DEAD_SESSION_MESSAGES = {
+            "chrome not reachable", "disconnected: not connected to devtools", "unable to connect to renderer",
+            "tab crashed", "target crashed", "session deleted because of page crash",
+            "browsing context has been discarded", "failed to decode response from marionette"
+    };
+
+    // Every live monitor, scanned by the watchdog for hung commands
+    private static final Set<SessionHealthMonitor> monitors = ConcurrentHashMap.newKeySet();
+
+    // Decorated driver handed out by DriverFactory mapped to its monitor
+    private static final Map<WebDriver, SessionHealthMonitor> byDriver = new ConcurrentHashMap<>();
+
+    // Single daemon watchdog shared by all sessions
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-health-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        watchdog.scheduleWithFixedDelay(SessionHealthMonitor::checkDeadlines, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private final WebDriver original;
+    private final long commandDeadlineMillis;
+
+    // Start time of the outermost command in flight (0 when idle) and nesting depth
+    private final AtomicLong commandStartedAt = new AtomicLong();
+    private final AtomicInteger commandDepth = new AtomicInteger();
+
+    private volatile String deathReason;
+    private volatile String runningCommand;
+
+    private SessionHealthMonitor(WebDriver original) {
+        this.original = original;
+        this.commandDeadlineMillis = ConfigReader.getIntProperty("driver.health.commandDeadlineSeconds", 90) * 1000L;
+    }
+
+    /**
+     * Checks whether new sessions should be wrapped in a health monitor
+     *
+     * @return true if driver.health.enabled is not set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("driver.health.enabled", true);
+    }
+
+    /**
+     * Wraps a freshly started session so its commands are watched
+     *
+     * The returned driver implements the same interfaces as the original
+     * (JavascriptExecutor, TakesScreenshot, HasCdp, ...).
+     *
+     * @param session Newly created WebDriver
+     * @return Monitored WebDriver, or the session itself if monitoring is disabled
+     */
+    public static WebDriver monitor(WebDriver session) {
+        if (session == null || !isEnabled()) {
+            return session;
+        }
+        SessionHealthMonitor monitor = new SessionHealthMonitor(session);
+        WebDriver decorated = monitor.decorate(session);
+        monitors.add(monitor);
+        byDriver.put(decorated, monitor);
+        return decorated;
+    }
+
+    /**
+     * Checks whether a driver's session has been detected as crashed or hung
+     *
+     * @param driver WebDriver returned by {@link #monitor(WebDriver)}
+     * @return true if the session is dead; false if healthy or not monitored
+     */
+    public static boolean isDead(WebDriver driver) {
+        SessionHealthMonitor monitor = driver == null ? null : byDriver.get(driver);
+        return monitor != null && monitor.deathReason != null;
+    }
+
+    /**
+     * @param driver WebDriver returned by {@link #monitor(WebDriver)}
+     * @return Why the session was declared dead, or null if it is not
+     */
+    public static String getDeathReason(WebDriver driver) {
+        SessionHealthMonitor monitor = driver == null ? null : byDriver.get(driver);
+        return monitor == null ? null : monitor.deathReason;
+    }
+
+    @Override
+    public void beforeCall(Decorated<?> target, Method method, Object[] args) {
+        boolean quitting = isQuit(method);
+        // Fail fast instead of waiting on a browser we already know is gone (quit still goes through)
+        if (deathReason != null && !quitting) {
+            throw new NoSuchSessionException("Browser session is dead: " + deathReason);
+        }
+        if (commandDepth.getAndIncrement() == 0) {
+            runningCommand = method.getName();
+            commandStartedAt.set(System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void afterCall(Decorated<?> target, Method method, Object[] args, Object result) {
+        endCommand();
+        if (isQuit(method)) {
+            unregister();
+        }
+    }
+
+    @Override
+    public Object onError(Decorated<?> target, Method method, Object[] args, InvocationTargetException e) throws Throwable {
+        endCommand();
+        Throwable cause = e.getTargetException();
+        if (isQuit(method)) {
+            unregister();
+        } else if (deathReason == null && isDeadSessionError(cause)) {
+            markDead(cause.getClass().getSimpleName() + " during " + method.getName() + ": " + firstLine(cause.getMessage()));
+        }
+        throw cause;
+    }
+
+    private void endCommand() {
+        if (commandDepth.decrementAndGet() <= 0) {
+            commandDepth.set(0);
+            commandStartedAt.set(0);
+            runningCommand = null;
+        }
+    }
+
+    /**
+     * Decides whether a command failure means the whole session is unusable
+     *
+     * Only the driver's own WebDriverException is matched against the known
+     * messages; causes further down the chain are checked by type alone.
+     *
+     * @param error Exception thrown by the underlying driver
+     * @return true for crashes, lost connections and vanished sessions
+     */
+    static boolean isDeadSessionError(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof NoSuchSessionException
+                    || current instanceof UnreachableBrowserException
+                    || current instanceof SessionNotCreatedException) {
+                return true;
+            }
+        }
+        if (!(error instanceof WebDriverException)) {
+            return false;
+        }
+        // Raw message: the driver's error text without Selenium's build and system info
+        String rawMessage = ((WebDriverException) error).getRawMessage();
+        String message = rawMessage == null ? "" : rawMessage.toLowerCase(Locale.ROOT);
+        for (String driverMessage : DEAD_SESSION_MESSAGES) {
+            if (message.contains(driverMessage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkDeadlines() {
+        long now = System.currentTimeMillis();
+        for (SessionHealthMonitor monitor : monitors) {
+            long startedAt = monitor.commandStartedAt.get();
+            if (monitor.deathReason == null && startedAt > 0 && now - startedAt > monitor.commandDeadlineMillis) {
+                // Killing the processes breaks the blocked HTTP call, which then surfaces in onError
+                monitor.markDead("command '" + monitor.runningCommand + "' hung for "
+                        + ((now - startedAt) / 1000) + "s");
+            }
+        }
+    }
+
+    private synchronized void markDead(String reason) {
+        if (deathReason != null) {
+            return;
+        }
+        deathReason = reason;
+        System.err.println("Browser session declared dead (" + reason + ") - killing its processes");
+        // Remote (grid) sessions have no local processes; the grid reclaims them on quit or timeout
+        BrowserProcessRegistry.killProcesses(original);
+    }
+
+    private void unregister() {
+        monitors.remove(this);
+        byDriver.values().removeIf(monitor -> monitor == this);
+    }
+
+    private static boolean isQuit(Method method) {
+        return "quit".equals(method.getName());
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * SharedDriverServices - Long-Lived chromedriver/geckodriver Processes Shared by Sessions
+ *
+ * A plain {@code new ChromeDriver(options)} starts its own chromedriver process
+ * and HTTP server for every session and stops it again on quit(). This class
+ * keeps a small set of ChromeDriverService/GeckoDriverService instances running
+ * for the whole JVM and attaches new sessions to them, so a scenario only pays
+ * for launching the browser itself.
+ *
+ * Key Features:
+ * - Driver services started on first use and stopped at JVM shutdown
+ * - driver.service.sessionsPerService concurrent Chrome sessions per chromedriver
+ * - geckodriver reused sequentially (it serves one session at a time)
+ * - Dead services are detected on checkout and replaced
+ * - Driver binaries come from DriverBinaryResolver (resolved once per JVM)
+ * - Sessions keep the full ChromiumDriver feature set (CDP, DevTools, casting)
+ *
+ * Configuration:
+ * - driver.service.shared: true to share driver services (default true)
+ * - driver.service.sessionsPerService: concurrent Chrome sessions per service (default 4)
+ *
+ * Sessions created here end on the driver side through the normal quit(); only
+ * the driver process keeps running. Remote (grid) sessions never use this class.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.AddHasCasting;
+import org.openqa.selenium.chrome.AddHasCdp;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+public class SharedDriverServices {
+
+    // Running services per browser ("chrome", "firefox")
+    private static final Map<String, List<SharedService>> services = new HashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SharedDriverServices::shutdown, "shared-driver-services-shutdown"));
+    }
+
+    /**
+     * One running driver process and the sessions currently attached to it
+     */
+    private static final class SharedService {
+        private final DriverService service;
+        private final int capacity;
+        private int activeSessions;
+
+        private SharedService(DriverService service, int capacity) {
+            this.service = service;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Chrome session attached to a shared chromedriver
+     *
+     * Uses a plain HTTP executor instead of ChromeDriver's service executor,
+     * which would stop the driver process when the session quits.
+     */
+    private static final class SharedChromeDriver extends ChromiumDriver {
+        private final Runnable onQuit;
+        private final AtomicBoolean quit = new AtomicBoolean();
+
+        private SharedChromeDriver(URL serviceUrl, ChromeOptions options, Runnable onQuit) {
+            super(new HttpCommandExecutor(chromeCommands(), serviceUrl), options, ChromeOptions.CAPABILITY);
+            this.onQuit = onQuit;
+            casting = new AddHasCasting().getImplementation(getCapabilities(), getExecuteMethod());
+            cdp = new AddHasCdp().getImplementation(getCapabilities(), getExecuteMethod());
+        }
+
+        @Override
+        public void quit() {
+            try {
+                super.quit();
+            } finally {
+                if (quit.compareAndSet(false, true)) {
+                    onQuit.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Firefox session attached to a shared geckodriver
+     */
+    private static final class SharedGeckoDriver extends RemoteWebDriver {
+        private final Runnable onQuit;
+        private final AtomicBoolean quit = new AtomicBoolean();
+
+        private SharedGeckoDriver(URL serviceUrl, FirefoxOptions options, Runnable onQuit) {
+            super(new HttpCommandExecutor(serviceUrl), options);
+            this.onQuit = onQuit;
+        }
+
+        @Override
+        public void quit() {
+            try {
+                super.quit();
+            } finally {
+                if (quit.compareAndSet(false, true)) {
+                    onQuit.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether local sessions should attach to shared driver services
+     *
+     * @return true unless driver.service.shared is set to false
+     */
+    public static boolean isEnabled() {
+        return ConfigReader.getBooleanProperty("driver.service.shared", true);
+    }
+
+    /**
+     * Starts a Chrome session on a shared chromedriver
+     *
+     * @param options Fully configured ChromeOptions
+     * @return New Chrome session with CDP/DevTools support
+     */
+    public static ChromiumDriver startChrome(ChromeOptions options) {
+        int perService = Math.max(1, ConfigReader.getIntProperty("driver.service.sessionsPerService", 4));
+        DriverBinaryResolver.Resolution resolution = DriverBinaryResolver.resolve("chrome", options);
+        DriverBinaryResolver.applyBrowserPath(options, resolution);
+        SharedService shared = checkOut("chrome", perService, () -> DriverBinaryResolver.chromeService(resolution));
+        try {
+            return new SharedChromeDriver(shared.service.getUrl(), options, () -> checkIn(shared));
+        } catch (RuntimeException e) {
+            checkIn(shared);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a Firefox session on a shared geckodriver
+     *
+     * geckodriver accepts a single session at a time, so each service serves
+     * one scenario and is then reused by the next one.
+     *
+     * @param options Fully configured FirefoxOptions
+     * @return New Firefox session
+     */
+    public static RemoteWebDriver startFirefox(FirefoxOptions options) {
+        DriverBinaryResolver.Resolution resolution = DriverBinaryResolver.resolve("firefox", options);
+        DriverBinaryResolver.applyBrowserPath(options, resolution);
+        SharedService shared = checkOut("firefox", 1, () -> DriverBinaryResolver.geckoService(resolution));
+        try {
+            return new SharedGeckoDriver(shared.service.getUrl(), options, () -> checkIn(shared));
+        } catch (RuntimeException e) {
+            checkIn(shared);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a process is one of the shared driver services
+     *
+     * Used by BrowserProcessRegistry so killing a crashed browser never takes
+     * down the driver other sessions are still attached to.
+     *
+     * @param process Candidate driver process
+     * @return true if the process listens on a shared service port
+     */
+    public static boolean isSharedServiceProcess(ProcessHandle process) {
+        String commandLine = process.info().commandLine().orElse("");
+        synchronized (services) {
+            for (List<SharedService> browserServices : services.values()) {
+                for (SharedService shared : browserServices) {
+                    // Whole argument only: --port=95 must not match --port=9515, nor --websocket-port=...
+                    Pattern portArgument = Pattern.compile("(^|\\s)--port=" + shared.service.getUrl().getPort() + "(\\s|$)");
+                    if (portArgument.matcher(commandLine).find()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops every shared driver service; called from the JVM shutdown hook
+     */
+    public static void shutdown() {
+        List<SharedService> all = new ArrayList<>();
+        synchronized (services) {
+            services.values().forEach(all::addAll);
+            services.clear();
+        }
+        for (SharedService shared : all) {
+            stopQuietly(shared.service);
+        }
+    }
+
+    /**
+     * Reserves a session slot on the least busy healthy service, starting one if needed
+     */
+    private static SharedService checkOut(String browser, int capacity, Supplier<DriverService> builder) {
+        synchronized (services) {
+            List<SharedService> browserServices = services.computeIfAbsent(browser, key -> new ArrayList<>());
+
+            // Forget services whose process died (crash, reaper); their sessions are gone too
+            browserServices.removeIf(shared -> {
+                boolean dead = !shared.service.isRunning();
+                if (dead) {
+                    stopQuietly(shared.service);
+                }
+                return dead;
+            });
+
+            SharedService best = null;
+            for (SharedService shared : browserServices) {
+                if (shared.activeSessions < shared.capacity
+                        && (best == null || shared.activeSessions < best.activeSessions)) {
+                    best = shared;
+                }
+            }
+            if (best == null) {
+                best = startService(builder.get(), capacity);
+                browserServices.add(best);
+            }
+            best.activeSessions++;
+            return best;
+        }
+    }
+
+    private static void checkIn(SharedService shared) {
+        synchronized (services) {
+            shared.activeSessions = Math.max(0, shared.activeSessions - 1);
+        }
+    }
+
+    private static SharedService startService(DriverService service, int capacity) {
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Could not start " + service.getExecutable(), e);
+        }
+        return new SharedService(service, capacity);
+    }
+
+    private static Map<String, CommandInfo> chromeCommands() {
+        Map<String, CommandInfo> commands = new HashMap<>(new AddHasCasting().getAdditionalCommands());
+        commands.putAll(new AddHasCdp().getAdditionalCommands());
+        return commands;
+    }
+
+    private static void stopQuietly(DriverService service) {
+        try {
+            service.stop();
+        } catch (Exception ignored) {
+            // Process already gone
+        }
+    }
+}
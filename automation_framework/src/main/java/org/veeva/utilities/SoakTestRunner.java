@@ -0,0 +1,132 @@
+/**
+ * SoakTestRunner - Long-Running Leak Detection for Browser Sessions
+ *
+ * This utility runs the same Cucumber scenarios over and over in one JVM and
+ * records, after every iteration, how much memory the JVM and its browsers use,
+ * how many browser/driver processes are alive and whether any ThreadLocal state
+ * (DriverFactory.driver, Hooks.wait) was left behind. Steady growth in any of
+ * these columns points at a leak that would eventually take down a shared CI agent.
+ *
+ * Report Columns (target/soak-report.csv):
+ * - iteration, exitStatus, durationMs
+ * - rssKb: resident memory of the JVM plus every process it started (Linux only)
+ * - browserProcesses: live chrome/chromedriver/firefox/geckodriver processes
+ * - openSessions: sessions started and not yet quit (pooled sessions included)
+ * - driverBindings / waitBindings: ThreadLocal values still set after the iteration (leaks)
+ * - reaped: sessions/processes killed by BrowserProcessRegistry so far
+ *
+ * Configuration (system properties or config.properties):
+ * - soak.iterations: number of suite iterations (default 1000)
+ * - soak.features: feature files or directory (default src/test/resources/features)
+ * - soak.glue: step definition package of the test module (required)
+ * - soak.tags: Cucumber tag expression (optional)
+ * - soak.threads: parallel scenarios per iteration (default 1)
+ * - soak.report: CSV output file (default target/soak-report.csv)
+ *
+ * Usage (from a test module):
+ * mvn -pl core_product_tests test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=org.veeva.utilities.SoakTestRunner
+ *     -Dsoak.glue=org.veeva.core.stepDefinitions -Dsoak.iterations=2000
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import io.cucumber.core.cli.Main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class SoakTestRunner {
+
+    /**
+     * Runs the configured scenarios soak.iterations times and writes the leak report
+     *
+     * @param args Not used - configuration comes from system properties
+     * @throws IOException if the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int iterations = ConfigReader.getIntProperty("soak.iterations", 1000);
+        String glue = ConfigReader.getProperty("soak.glue", "");
+        if (glue.isEmpty()) {
+            throw new IllegalArgumentException("soak.glue must name the step definition package, "
+                    + "e.g. -Dsoak.glue=org.veeva.core.stepDefinitions");
+        }
+        if (System.getProperty("browser") == null) {
+            // DriverFactory reads the browser from the system property set by the TestNG runners
+            System.setProperty("browser", ConfigReader.getProperty("browser", "chrome"));
+        }
+        String[] cucumberArgs = buildCucumberArgs(glue);
+        Path report = Paths.get(ConfigReader.getProperty("soak.report", "target/soak-report.csv"));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+
+        long baselineRss = -1;
+        int baselineProcesses = -1;
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write("iteration,exitStatus,durationMs,rssKb,browserProcesses,openSessions,"
+                    + "driverBindings,waitBindings,reaped");
+            writer.newLine();
+
+            for (int iteration = 1; iteration <= iterations; iteration++) {
+                long startedAt = System.currentTimeMillis();
+                byte exitStatus = Main.run(cucumberArgs, Thread.currentThread().getContextClassLoader());
+                long durationMs = System.currentTimeMillis() - startedAt;
+
+                // Snapshot before reaping so leaks show up in the iteration that caused them
+                long rssKb = BrowserProcessRegistry.residentMemoryKb();
+                int processes = BrowserProcessRegistry.browserProcesses().size();
+                int openSessions = BrowserProcessRegistry.openSessionCount();
+                Map<String, Integer> bindings = BrowserProcessRegistry.getThreadLocalBindings();
+                int driverBindings = bindings.getOrDefault("DriverFactory.driver", 0);
+                int waitBindings = bindings.getOrDefault("Hooks.wait", 0);
+                BrowserProcessRegistry.reap();
+
+                writer.write(iteration + "," + exitStatus + "," + durationMs + "," + rssKb + "," + processes + ","
+                        + openSessions + "," + driverBindings + "," + waitBindings + ","
+                        + BrowserProcessRegistry.reapedCount());
+                writer.newLine();
+                writer.flush();
+
+                if (iteration == 1) {
+                    baselineRss = rssKb;
+                    baselineProcesses = processes;
+                }
+                System.out.println("Soak iteration " + iteration + "/" + iterations + ": exit=" + exitStatus
+                        + " rss=" + rssKb + "KB (baseline " + baselineRss + "KB) processes=" + processes
+                        + " (baseline " + baselineProcesses + ") threadLocalLeaks=" + (driverBindings + waitBindings));
+            }
+        }
+        System.out.println("Soak report written to " + report.toAbsolutePath());
+    }
+
+    private static String[] buildCucumberArgs(String glue) {
+        List<String> cucumberArgs = new ArrayList<>();
+        cucumberArgs.add("--glue");
+        cucumberArgs.add(glue);
+        cucumberArgs.add("--glue");
+        cucumberArgs.add("org.veeva.utilities");
+        cucumberArgs.add("--threads");
+        cucumberArgs.add(String.valueOf(Math.max(1, ConfigReader.getIntProperty("soak.threads", 1))));
+        cucumberArgs.add("--plugin");
+        cucumberArgs.add("summary");
+        cucumberArgs.add("--publish-quiet");
+        String tags = ConfigReader.getProperty("soak.tags", "");
+        if (!tags.isEmpty()) {
+            cucumberArgs.add("--tags");
+            cucumberArgs.add(tags);
+        }
+        cucumberArgs.add(ConfigReader.getProperty("soak.features", "src/test/resources/features"));
+        return cucumberArgs.toArray(new String[0]);
+    }
+}
@@ -10,6 +10,7 @@
  * - Browser tab and window management
  * - Element counting and validation
  * - XPath extraction from @FindBy annotations
+ * - Link harvesting: a whole heading -> (text, href) tree in one script call
  * - Page object management and navigation
  * - Robust error handling with retry mechanisms
  * 
@@ -33,13 +34,15 @@ package org.veeva.utilities;
 import org.openqa.selenium.*;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -60,6 +63,61 @@ public class Utilities {
     // Actions class for advanced user interactions
     protected Actions actions;
 
+    // Resolves once the hover's effect is stable: dependent element visible and not moving,
+    // no running finite animations and no DOM mutations near the hovered element
+    private static final String HOVER_SETTLE_SCRIPT =
+            "var hovered = arguments[0], dependent = arguments[1], quietMs = arguments[2], timeoutMs = arguments[3];"
+            + "var done = arguments[arguments.length - 1];"
+            + "var scope = (hovered.parentElement && hovered.parentElement.parentElement) || document.body;"
+            + "if (dependent) {"
+            + "  scope = dependent;"
+            + "  while (scope.parentElement && !scope.contains(hovered)) { scope = scope.parentElement; }"
+            + "}"
+            + "var start = performance.now(), lastChange = start, lastBox = null;"
+            + "var observer = new MutationObserver(function () { lastChange = performance.now(); });"
+            + "observer.observe(scope, {subtree: true, childList: true, attributes: true, characterData: true});"
+            + "function box(el) {"
+            + "  if (!el || !el.isConnected) { return 'detached'; }"
+            + "  var r = el.getBoundingClientRect(), s = getComputedStyle(el);"
+            + "  return [r.left, r.top, r.width, r.height, s.opacity, s.visibility, s.display].join();"
+            + "}"
+            + "function visible(el) {"
+            + "  if (!el || !el.isConnected) { return false; }"
+            + "  var r = el.getBoundingClientRect(), s = getComputedStyle(el);"
+            + "  return r.width > 0 && r.height > 0 && s.visibility === 'visible' && parseFloat(s.opacity) > 0;"
+            + "}"
+            + "function animating() {"
+            + "  var list = scope.getAnimations ? scope.getAnimations({subtree: true}) : [];"
+            + "  return list.some(function (a) {"
+            + "    return a.playState === 'running' && a.effect && a.effect.getComputedTiming().endTime !== Infinity;"
+            + "  });"
+            + "}"
+            + "function tick() {"
+            + "  var now = performance.now(), current = box(dependent);"
+            + "  if (current !== lastBox) { lastBox = current; lastChange = now; }"
+            + "  var settled = (!dependent || visible(dependent)) && !animating() && now - lastChange >= quietMs;"
+            + "  if (settled || now - start >= timeoutMs) { observer.disconnect(); done(settled); return; }"
+            + "  setTimeout(tick, 16);"
+            + "}"
+            + "tick();";
+
+    // Returns [[groupText, [[linkText, href], ...]], ...] for every node matching the group
+    // XPath, with links found through the link XPath evaluated relative to each group node
+    private static final String HARVEST_LINKS_SCRIPT =
+            "var groups = document.evaluate(arguments[0], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "var tree = [];"
+            + "for (var i = 0; i < groups.snapshotLength; i++) {"
+            + "  var group = groups.snapshotItem(i);"
+            + "  var links = document.evaluate('.' + arguments[1], group, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "  var rows = [];"
+            + "  for (var j = 0; j < links.snapshotLength; j++) {"
+            + "    var link = links.snapshotItem(j);"
+            + "    rows.push([(link.innerText || '').trim(), link.href || link.getAttribute('href') || '']);"
+            + "  }"
+            + "  tree.push([(group.innerText || '').trim(), rows]);"
+            + "}"
+            + "return tree;";
+
     /**
      * Constructor for Utilities class
      * 
@@ -72,8 +130,8 @@ public class Utilities {
         // Store WebDriver instance for utility operations
         this.driver = driver;
         
-        // Initialize WebDriverWait with 10-second timeout
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        // Initialize WebDriverWait with the default timeout (wait.timeoutSeconds)
+        this.wait = new WebDriverWait(driver, WaitTelemetry.defaultTimeout());
         
         // Initialize Actions class for complex interactions
         this.actions = new Actions(driver);
@@ -84,7 +142,8 @@ public class Utilities {
      * 
      * This method performs a hover action on the specified element with built-in
      * error handling and retry logic. It waits for element visibility before
-     * hovering and includes a brief pause after hover for UI stabilization.
+     * hovering and then waits until the area around the element has stopped
+     * changing (see waitForHoverToSettle) instead of sleeping for a fixed time.
      * 
      * Common use cases:
      * - Revealing dropdown menus
@@ -95,31 +154,75 @@ public class Utilities {
      * @throws RuntimeException if hover operation fails after retry
      */
     public void hoverToElement(WebElement element) {
-        try {
-            // Wait for element to be visible before hovering
-            wait.until(ExpectedConditions.visibilityOf(element));
-            
-            // Perform hover action using Actions class
-            actions.moveToElement(element).perform();
-            
-            // Brief pause to allow UI to respond to hover
-            Thread.sleep(Duration.ofMillis(1000));
+        hoverToElement(element, null);
+    }
 
-        } catch (StaleElementReferenceException e) {
-            // Retry once if element becomes stale (DOM refresh)
-            // This handles cases where page content changes during hover
-            hoverToElement(element);
-            
-        } catch (TimeoutException e) {
-            // Handle timeout if element doesn't become visible
-            throw new RuntimeException("Timed out waiting for hover element to be visible", e);
-            
-        } catch (Exception e) {
-            // Handle any other unexpected errors during hover
-            throw new RuntimeException("Unexpected error during hover operation", e);
+    /**
+     * Hovers over a WebElement and waits for the element it reveals to settle
+     * 
+     * Returns as soon as the dependent element (e.g. a menu entry) is visible,
+     * no longer moving or animating and its surroundings have stopped changing.
+     * A target that goes stale (DOM refresh) is hovered again, at most
+     * hover.attempts times in total.
+     * 
+     * @param element WebElement to hover over
+     * @param dependent Element the hover reveals, or null to wait for the hovered area to settle
+     * @throws RuntimeException if hover operation fails after all attempts
+     */
+    public void hoverToElement(WebElement element, WebElement dependent) {
+        int attempts = Math.max(1, ConfigReader.getIntProperty("hover.attempts", 3));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Wait for element to be visible before hovering
+                wait.until(EventDrivenConditions.visibilityOf(element));
+
+                // Perform hover action using Actions class
+                actions.moveToElement(element).perform();
+
+                // Wait until the UI has responded to the hover
+                waitForHoverToSettle(element, dependent);
+                return;
+
+            } catch (StaleElementReferenceException e) {
+                // Page content changed during hover: hover again, within the attempt budget
+                if (attempt >= attempts) {
+                    throw new RuntimeException("Hover element kept going stale after " + attempts + " attempts", e);
+                }
+
+            } catch (TimeoutException e) {
+                // Handle timeout if element doesn't become visible
+                throw new RuntimeException("Timed out waiting for hover element to be visible", e);
+
+            } catch (Exception e) {
+                // Handle any other unexpected errors during hover
+                throw new RuntimeException("Unexpected error during hover operation", e);
+            }
         }
     }
 
+    /**
+     * Waits in the page until a hover has finished taking effect
+     * 
+     * Settled means: the dependent element (if any) is visible, its position,
+     * size and computed opacity/visibility did not change for
+     * hover.settle.quietMillis, no finite CSS animation or transition is running
+     * near the hovered element and that area saw no DOM mutations for the same
+     * quiet period. "Near" is the closest common ancestor of the two elements,
+     * or the hovered element's grandparent without a dependent. Gives up after hover.settle.timeoutMillis without failing,
+     * so a page that never settles costs at most that long.
+     * 
+     * @param hovered Element that was hovered
+     * @param dependent Element the hover reveals, or null
+     * @return true if the hover settled, false if the time limit was reached
+     */
+    public boolean waitForHoverToSettle(WebElement hovered, WebElement dependent) {
+        long quietMillis = Math.max(0, ConfigReader.getIntProperty("hover.settle.quietMillis", 100));
+        long timeoutMillis = Math.max(quietMillis, ConfigReader.getIntProperty("hover.settle.timeoutMillis", 2000));
+        Object settled = ((JavascriptExecutor) driver).executeAsyncScript(HOVER_SETTLE_SCRIPT,
+                hovered, dependent, quietMillis, timeoutMillis);
+        return Boolean.TRUE.equals(settled);
+    }
+
     /**
      * Safely clicks an element if it's visible
      * 
@@ -132,7 +235,7 @@ public class Utilities {
     public void clickIfVisible(WebElement element) {
         try {
             // Wait for element to be visible before clicking
-            wait.until(ExpectedConditions.visibilityOf(element));
+            wait.until(EventDrivenConditions.visibilityOf(element));
             
             // Perform click action
             element.click();
@@ -163,6 +266,17 @@ public class Utilities {
         js.executeScript("window.scrollTo(0, document.body.scrollHeight);");
     }
 
+    /**
+     * Waits until the current page is DOM-ready and its network has gone idle
+     * 
+     * Call after driver.get() when the browser uses the "eager" or "none"
+     * page-load strategy. Ignored hosts and long-polling requests never hold
+     * the page back (see PageReadiness for configuration keys).
+     */
+    public void waitForPageReady() {
+        PageReadiness.waitForPageReady(driver);
+    }
+
     /**
      * Gets the count of elements in a WebElement list
      * 
@@ -202,7 +316,7 @@ public class Utilities {
             
             try {
                 // Check if current tab title contains expected text
-                if (wait.until(ExpectedConditions.titleContains(expectedTitle))) {
+                if (wait.until(EventDrivenConditions.titleContains(expectedTitle))) {
                     // Found matching tab, stay on this tab and return
                     return;
                 }
@@ -268,6 +382,44 @@ public class Utilities {
         }
     }
 
+    /**
+     * Reads a grouped link tree (e.g. footer headings and their links) in one round-trip
+     * 
+     * Replaces a findElements() per group plus getText()/getAttribute("href")
+     * per link: both locators are evaluated in the page by a single script.
+     * 
+     * @param pageClass Page object class declaring both fields
+     * @param groupField Field with @FindBy(xpath) matching the group headings
+     * @param linkField Field with @FindBy(xpath) locating a group's links relative to its
+     *                  heading (a path starting with "/", as appended to the heading XPath)
+     * @return Heading text -> (link text, absolute href) in page order; groups with
+     *         the same heading text are merged
+     */
+    public Map<String, List<Map.Entry<String, String>>> harvestLinks(Class<?> pageClass, String groupField, String linkField) {
+        return harvestLinks(getElementXpathValue(pageClass, groupField), getElementXpathValue(pageClass, linkField));
+    }
+
+    /**
+     * Reads a grouped link tree in one round-trip
+     * 
+     * @param groupXpath XPath matching the group headings
+     * @param linkXpath XPath of a group's links relative to its heading (starting with "/")
+     * @return Heading text -> (link text, absolute href) in page order
+     */
+    public Map<String, List<Map.Entry<String, String>>> harvestLinks(String groupXpath, String linkXpath) {
+        List<?> tree = (List<?>) ((JavascriptExecutor) driver).executeScript(HARVEST_LINKS_SCRIPT, groupXpath, linkXpath);
+        Map<String, List<Map.Entry<String, String>>> groups = new LinkedHashMap<>();
+        for (Object group : tree) {
+            List<?> groupValues = (List<?>) group;
+            List<Map.Entry<String, String>> links = groups.computeIfAbsent(String.valueOf(groupValues.get(0)), k -> new ArrayList<>());
+            for (Object link : (List<?>) groupValues.get(1)) {
+                List<?> linkValues = (List<?>) link;
+                links.add(new AbstractMap.SimpleImmutableEntry<>(String.valueOf(linkValues.get(0)), String.valueOf(linkValues.get(1))));
+            }
+        }
+        return groups;
+    }
+
     /**
      * Extracts XPath value from @FindBy annotation using reflection
      * 
@@ -308,4 +460,24 @@ public class Utilities {
             );
         }
     }
+
+    /**
+     * Nearest-rank percentile of a set of samples
+     *
+     * Shared by the adaptive wait timeouts (WaitTelemetry) and the launch
+     * profile benchmark.
+     *
+     * @param samples Observed values, in any order
+     * @param percentile Percentile to return, e.g. 50, 95 or 99
+     * @return Percentile value, or -1 when there are no samples
+     */
+    public static long percentile(List<Long> samples, int percentile) {
+        if (samples.isEmpty()) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ * VirtualTimeController - Opt-In Virtual Time for Timer-Driven UI Scenarios
+ *
+ * Scenarios that assert on how long something stays on screen (e.g. carousel
+ * slide durations) otherwise wait through the page's timers in real time. For
+ * scenarios tagged @VirtualTime this class switches the browser to virtual time
+ * through the Chrome DevTools Protocol (Emulation.setVirtualTimePolicy): whenever
+ * the page has no immediate work, its clock jumps to the next pending timer.
+ * Date.now() and performance.now() report virtual time, so durations measured in
+ * the page (see CarouselTimingRecorder) are still the page's own timings.
+ *
+ * Key Features:
+ * - @VirtualTime tag opts a scenario in; everything else runs in real time
+ * - Virtual time stands still while network fetches are pending (default policy),
+ *   so slow responses do not make timers fire "early"
+ * - Sessions that ran on virtual time are not handed back to the session pool,
+ *   because the policy cannot be switched back to real time
+ * - Status attached to the Allure report
+ *
+ * Configuration:
+ * - virtualTime.enabled: honour the @VirtualTime tag (default true); set to false
+ *   (e.g. -DvirtualTime.enabled=false) to cross-check the same scenarios in real time
+ * - virtualTime.policy: advance or pauseIfNetworkFetchesPending (default)
+ * - virtualTime.maxTaskStarvationCount: tasks run before virtual time is forced
+ *   forward on pages that never go idle (default 100)
+ *
+ * Limitations: Needs a Chromium based browser (HasCdp); other browsers run the
+ * scenario in real time.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class VirtualTimeController {
+
+    // Tag that runs a scenario on virtual time
+    private static final String TAG = "@virtualtime";
+
+    // Sessions currently running on virtual time
+    private static final Set<WebDriver> activeSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Switches the scenario's browser to virtual time if the scenario asks for it
+     *
+     * @param driver WebDriver of the scenario
+     * @param scenarioTags Source tag names of the scenario (e.g. "@VirtualTime")
+     * @return true if the browser now runs on virtual time
+     */
+    public static boolean start(WebDriver driver, Collection<String> scenarioTags) {
+        if (!ConfigReader.getBooleanProperty("virtualTime.enabled", true) || !isRequested(scenarioTags)) {
+            return false;
+        }
+        if (!(driver instanceof HasCdp)) {
+            AllureReportUtils.attachTextToAllure("Virtual Time", "Not active: browser has no DevTools support, running in real time");
+            return false;
+        }
+        String policy = ConfigReader.getProperty("virtualTime.policy", "pauseIfNetworkFetchesPending");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("policy", policy);
+        params.put("maxVirtualTimeTaskStarvationCount",
+                Math.max(1, ConfigReader.getIntProperty("virtualTime.maxTaskStarvationCount", 100)));
+        try {
+            ((HasCdp) driver).executeCdpCommand("Emulation.setVirtualTimePolicy", params);
+        } catch (Exception e) {
+            AllureReportUtils.attachTextToAllure("Virtual Time", "Not active: " + e.getMessage() + ", running in real time");
+            return false;
+        }
+        activeSessions.add(driver);
+        AllureReportUtils.attachTextToAllure("Virtual Time", "Active (" + policy + "); timings are reported in virtual time");
+        return true;
+    }
+
+    /**
+     * @param driver WebDriver to check
+     * @return true if the session has been switched to virtual time
+     */
+    public static boolean isActive(WebDriver driver) {
+        return driver != null && activeSessions.contains(driver);
+    }
+
+    /**
+     * Forgets a session once it has been quit or discarded
+     *
+     * @param driver WebDriver that is no longer used
+     */
+    public static void forget(WebDriver driver) {
+        if (driver != null) {
+            activeSessions.remove(driver);
+        }
+    }
+
+    private static boolean isRequested(Collection<String> scenarioTags) {
+        for (String tag : scenarioTags) {
+            if (TAG.equalsIgnoreCase(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,346 @@
+/**
+ * WaitTelemetry - Recorded Wait Times and Adaptive Per-Element Timeouts
+ *
+ * A fixed 10 second timeout is wrong in both directions: optional elements such
+ * as a sign-up pop-up or cookie banner cost the full 10 seconds whenever they do
+ * not show up, while genuinely slow elements still time out now and then. This
+ * class records how long every named wait actually took, keeps that history
+ * across runs and derives each wait's timeout from it.
+ *
+ * Adaptive Timeout per Key (e.g. "HomePage.cookieAcceptBtn"), from the last
+ * wait.adaptive.window observations only, so old runs age out:
+ * - Fewer than wait.adaptive.minSamples observations: wait.timeoutSeconds
+ * - Required waits (until): p99 of the observed times x wait.adaptive.margin, never
+ *   below wait.timeoutSeconds and at most wait.adaptive.maxSeconds - a slow element
+ *   gets more time, but a bad run or outage never shortens the wait
+ * - Optional waits (untilOptional), e.g. pop-ups and cookie banners: the same p99
+ *   bound kept between wait.adaptive.minMillis and wait.adaptive.maxSeconds; if the
+ *   element did not appear at all in the window, wait.adaptive.minMillis (fail fast)
+ *   with a full-length probe every wait.adaptive.probeEvery waits
+ *
+ * Fail-fast misses are recorded apart from full-length ones, so the probe schedule
+ * is part of the persisted history and survives JVM restarts.
+ *
+ * Configuration:
+ * - wait.timeoutSeconds: default timeout of every WebDriverWait (default 10)
+ * - wait.adaptive.enabled: derive timeouts from history (default true; false only records)
+ * - wait.adaptive.minSamples: observations needed before adapting (default 5)
+ * - wait.adaptive.window: most recent observations a timeout is derived from (default 50)
+ * - wait.adaptive.margin: multiplier applied to the p99 (default 2.0)
+ * - wait.adaptive.minMillis / wait.adaptive.maxSeconds: timeout bounds (default 1000 / 30)
+ * - wait.adaptive.probeEvery: full-timeout probe interval for never-seen optional elements (default 20)
+ * - wait.telemetry.file: history file (default wait-telemetry/wait-times.tsv)
+ * - wait.telemetry.samples: observations kept per key (default 200)
+ *
+ * The history is loaded on first use and merged back into the file at JVM exit
+ * under an exclusive lock on a sidecar .lock file, so parallel runners (e.g.
+ * surefire forks) saving at the same time all contribute.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.utilities;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class WaitTelemetry {
+
+    // Recorded outcome of a wait that did not see its condition before the timeout
+    private static final long NOT_APPEARED = -1;
+
+    // Recorded outcome of a shortened (fail-fast) optional wait that did not see its condition
+    private static final long NOT_APPEARED_FAST = -2;
+
+    // History loaded from the file plus everything recorded in this JVM, per key
+    private static final Map<String, Deque<Long>> history = new ConcurrentHashMap<>();
+
+    // Observations recorded in this JVM only, merged into the file at exit
+    private static final Map<String, List<Long>> recorded = new ConcurrentHashMap<>();
+
+    private static volatile boolean loaded;
+
+    /**
+     * @return Timeout for waits without history (wait.timeoutSeconds, default 10 s)
+     */
+    public static Duration defaultTimeout() {
+        return Duration.ofSeconds(Math.max(1, ConfigReader.getIntProperty("wait.timeoutSeconds", 10)));
+    }
+
+    /**
+     * Waits for a named condition that must hold, with its adaptive timeout, and records how long it took
+     *
+     * @param driver Driver of the current scenario
+     * @param key Stable name of the wait, usually PageClass.fieldName
+     * @param condition Condition to wait for
+     * @param <T> Condition result type
+     * @return Condition result
+     * @throws TimeoutException if the condition does not hold within the adaptive timeout
+     */
+    public static <T> T until(WebDriver driver, String key, ExpectedCondition<T> condition) {
+        return until(driver, key, condition, false);
+    }
+
+    /**
+     * Waits for a named condition that may never hold (an optional pop-up or banner)
+     *
+     * Unlike {@link #until}, the timeout may drop below wait.timeoutSeconds and
+     * fails fast when the element has not appeared recently.
+     *
+     * @param driver Driver of the current scenario
+     * @param key Stable name of the wait, usually PageClass.fieldName
+     * @param condition Condition to wait for
+     * @param <T> Condition result type
+     * @return Condition result
+     * @throws TimeoutException if the condition does not hold within the adaptive timeout
+     */
+    public static <T> T untilOptional(WebDriver driver, String key, ExpectedCondition<T> condition) {
+        return until(driver, key, condition, true);
+    }
+
+    private static <T> T until(WebDriver driver, String key, ExpectedCondition<T> condition, boolean optional) {
+        Duration timeout = timeoutFor(key, optional);
+        long startedAt = System.nanoTime();
+        try {
+            T result = EventDrivenConditions.withDeadline(System.currentTimeMillis() + timeout.toMillis(),
+                    () -> new WebDriverWait(driver, timeout).until(condition));
+            record(key, (System.nanoTime() - startedAt) / 1_000_000);
+            return result;
+        } catch (TimeoutException e) {
+            record(key, timeout.compareTo(defaultTimeout()) < 0 ? NOT_APPEARED_FAST : NOT_APPEARED);
+            throw e;
+        }
+    }
+
+    /**
+     * Works out the timeout of a required named wait from its recorded history
+     *
+     * @param key Stable name of the wait, usually PageClass.fieldName
+     * @return Adaptive timeout, never shorter than the default timeout
+     */
+    public static Duration timeoutFor(String key) {
+        return timeoutFor(key, false);
+    }
+
+    /**
+     * Works out the timeout of a named wait from its recent history
+     *
+     * @param key Stable name of the wait, usually PageClass.fieldName
+     * @param optional true if the element may legitimately never appear (allows failing fast)
+     * @return Adaptive timeout, or the default timeout without enough history
+     */
+    public static Duration timeoutFor(String key, boolean optional) {
+        Duration fallback = defaultTimeout();
+        if (!ConfigReader.getBooleanProperty("wait.adaptive.enabled", true)) {
+            return fallback;
+        }
+        List<Long> samples = samples(key);
+        int window = Math.max(1, ConfigReader.getIntProperty("wait.adaptive.window", 50));
+        List<Long> recent = samples.subList(Math.max(0, samples.size() - window), samples.size());
+        if (recent.size() < Math.max(1, ConfigReader.getIntProperty("wait.adaptive.minSamples", 5))) {
+            return fallback;
+        }
+
+        long minMillis = optional ? Math.max(100, ConfigReader.getIntProperty("wait.adaptive.minMillis", 1000)) : fallback.toMillis();
+        long maxMillis = Math.max(minMillis, ConfigReader.getIntProperty("wait.adaptive.maxSeconds", 30) * 1000L);
+        List<Long> appeared = new ArrayList<>();
+        for (long sample : recent) {
+            if (sample >= 0) {
+                appeared.add(sample);
+            }
+        }
+        if (appeared.isEmpty()) {
+            if (!optional) {
+                return fallback;
+            }
+            // Recently this element never showed up: do not spend the full timeout on it,
+            // except for an occasional full-length probe in case it has become slow instead
+            int probeEvery = Math.max(2, ConfigReader.getIntProperty("wait.adaptive.probeEvery", 20));
+            int failedFastSinceProbe = 0;
+            for (int i = samples.size() - 1; i >= 0 && samples.get(i) == NOT_APPEARED_FAST; i--) {
+                failedFastSinceProbe++;
+            }
+            return failedFastSinceProbe >= probeEvery - 1 ? fallback : Duration.ofMillis(minMillis);
+        }
+        double margin = Double.parseDouble(ConfigReader.getProperty("wait.adaptive.margin", "2.0"));
+        long adaptive = (long) Math.ceil(Utilities.percentile(appeared, 99) * margin);
+        return Duration.ofMillis(Math.min(maxMillis, Math.max(minMillis, adaptive)));
+    }
+
+    /**
+     * Records one observation of a named wait
+     *
+     * @param key Stable name of the wait
+     * @param millis Time until the condition held, -1 if it never did, -2 if a fail-fast wait missed it
+     */
+    public static void record(String key, long millis) {
+        ensureLoaded();
+        int limit = sampleLimit();
+        Deque<Long> samples = history.computeIfAbsent(key, k -> new ArrayDeque<>());
+        synchronized (samples) {
+            samples.addLast(millis);
+            while (samples.size() > limit) {
+                samples.removeFirst();
+            }
+        }
+        List<Long> mine = recorded.computeIfAbsent(key, k -> new ArrayList<>());
+        synchronized (mine) {
+            mine.add(millis);
+        }
+    }
+
+    /**
+     * @param key Stable name of the wait
+     * @return Recorded observations, oldest first (-1 = did not appear, -2 = missed by a fail-fast wait)
+     */
+    public static List<Long> samples(String key) {
+        ensureLoaded();
+        Deque<Long> samples = history.get(key);
+        if (samples == null) {
+            return Collections.emptyList();
+        }
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Merges this JVM's observations into the history file
+     *
+     * Re-reads the file first so observations saved by other runners in the
+     * meantime are kept. The re-read and the move happen under a lock on
+     * &lt;file&gt;.lock, so two JVMs saving at the same time take turns. Called
+     * automatically at JVM exit.
+     */
+    public static synchronized void save() {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        Path file = telemetryFile();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Blocks until no other JVM is between its re-read and its move
+                FileLock lock = channel.lock();
+                try {
+                    merge(file);
+                } finally {
+                    lock.release();
+                }
+            }
+            recorded.clear();
+        } catch (IOException e) {
+            System.err.println("Could not save wait telemetry to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the history file with this JVM's observations appended; caller holds the file lock
+     */
+    private static void merge(Path file) throws IOException {
+        Map<String, Deque<Long>> merged = new TreeMap<>(read(file));
+        int limit = sampleLimit();
+        for (Map.Entry<String, List<Long>> entry : recorded.entrySet()) {
+            Deque<Long> samples = merged.computeIfAbsent(entry.getKey(), k -> new ArrayDeque<>());
+            synchronized (entry.getValue()) {
+                samples.addAll(entry.getValue());
+            }
+            while (samples.size() > limit) {
+                samples.removeFirst();
+            }
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "wait-times", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Deque<Long>> entry : merged.entrySet()) {
+                StringBuilder line = new StringBuilder(entry.getKey()).append('\t');
+                boolean first = true;
+                for (long sample : entry.getValue()) {
+                    line.append(first ? "" : ",").append(sample);
+                    first = false;
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (WaitTelemetry.class) {
+            if (loaded) {
+                return;
+            }
+            try {
+                history.putAll(read(telemetryFile()));
+            } catch (IOException e) {
+                System.err.println("Could not read wait telemetry from " + telemetryFile() + ": " + e.getMessage());
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(WaitTelemetry::save, "wait-telemetry-save"));
+            loaded = true;
+        }
+    }
+
+    private static Map<String, Deque<Long>> read(Path file) throws IOException {
+        Map<String, Deque<Long>> samples = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return samples;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                Deque<Long> values = new ArrayDeque<>();
+                for (String value : line.substring(tab + 1).split(",")) {
+                    try {
+                        values.add(Long.parseLong(value.trim()));
+                    } catch (NumberFormatException ignored) {
+                        // Skip damaged entries rather than losing the whole key
+                    }
+                }
+                samples.put(line.substring(0, tab), values);
+            }
+        }
+        return samples;
+    }
+
+    private static Path telemetryFile() {
+        return Paths.get(ConfigReader.getProperty("wait.telemetry.file", "wait-telemetry/wait-times.tsv"));
+    }
+
+    private static int sampleLimit() {
+        return Math.max(1, ConfigReader.getIntProperty("wait.telemetry.samples", 200));
+    }
+}
@@ -0,0 +1,150 @@
+package org.veeva.utilities;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class CatalogHistoryTest {
+
+    private static final List<String> FIELDS = Arrays.asList("url", "price", "seller");
+
+    private Path directory;
+    private CatalogHistory history;
+
+    @BeforeClass
+    public void useSmallSortBuffer() {
+        // Two records per buffer, so a handful of records spills several sorted runs
+        System.setProperty("catalog.history.sortBufferRecords", "2");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restoreSortBuffer() {
+        System.clearProperty("catalog.history.sortBufferRecords");
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("catalog-history");
+        history = new CatalogHistory(directory, "shop", FIELDS);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void spilledRunsMergeInKeyOrderKeepingTheFirstDuplicate() throws IOException {
+        CatalogHistory.Snapshot snapshot = history.newSnapshot();
+        snapshot.add(Arrays.asList("b", "2", "x"));
+        snapshot.add(Arrays.asList("a", "1", "x"));
+        snapshot.add(Arrays.asList("c", "3", "x"));
+        // Same key as a record in the first run but different values: the first one wins
+        snapshot.add(Arrays.asList("a", "9", "y"));
+        snapshot.add(Arrays.asList("e", "5", "x"));
+        // Exact repeat of a record in the first run: dropped silently
+        snapshot.add(Arrays.asList("b", "2", "x"));
+        snapshot.add(Arrays.asList("d", "4", "x"));
+        assertEquals(snapshot.size(), 7);
+        assertEquals(spillFiles(), 3, "every full buffer is spilled");
+
+        CatalogHistory.Diff diff = history.commit(snapshot);
+
+        assertEquals(spillFiles(), 0, "spilled runs are deleted by commit");
+        assertEquals(diff.getCollisions(), 1);
+        assertFalse(diff.hasChanges(), "the first run has nothing to compare with");
+        assertEquals(Files.readAllLines(directory.resolve("shop.snapshot.tsv"), StandardCharsets.UTF_8), Arrays.asList(
+                "a\t1\tx", "b\t2\tx", "c\t3\tx", "d\t4\tx", "e\t5\tx"));
+        assertEquals(Files.readAllLines(diff.getReport(), StandardCharsets.UTF_8), Arrays.asList(
+                "change,key,field,oldValue,newValue",
+                "DUPLICATE,a,price,1,9",
+                "DUPLICATE,a,seller,x,y"));
+    }
+
+    @Test
+    public void laterRunReportsAddedRemovedAndChanged() throws IOException {
+        CatalogHistory.Diff first = commit(
+                Arrays.asList("a", "1", "x"),
+                Arrays.asList("b", "2", "x"),
+                Arrays.asList("c", "3", "x"));
+        assertFalse(first.hasChanges());
+
+        CatalogHistory.Diff second = commit(
+                Arrays.asList("d", "4", "x"),
+                Arrays.asList("c", "30", "y"),
+                Arrays.asList("b", "2", "x"));
+
+        assertEquals(second.getAdded(), 1);
+        assertEquals(second.getRemoved(), 1);
+        assertEquals(second.getChanged(), 2, "price and seller of c changed");
+        assertEquals(Files.readAllLines(second.getReport(), StandardCharsets.UTF_8), Arrays.asList(
+                "change,key,field,oldValue,newValue",
+                "REMOVED,a,price,1,",
+                "REMOVED,a,seller,x,",
+                "CHANGED,c,price,3,30",
+                "CHANGED,c,seller,x,y",
+                "ADDED,d,price,,4",
+                "ADDED,d,seller,,x"));
+
+        List<String> log = Files.readAllLines(directory.resolve("shop.history.tsv"), StandardCharsets.UTF_8);
+        assertEquals(log.size(), 8, "two RUN lines and six changes");
+        assertEquals(log.get(0), first.getRunId() + "\tRUN\t\trecords\t\t3");
+        assertEquals(log.get(1), second.getRunId() + "\tRUN\t\trecords\t\t3");
+        assertEquals(log.get(4), second.getRunId() + "\tCHANGED\tc\tprice\t3\t30");
+    }
+
+    @Test
+    public void escapedValuesRoundTripThroughTheSnapshot() throws IOException {
+        List<String> awkward = Arrays.asList("k\\ey", "tab\there\r\nand a new line", "back\\slash\\t literal");
+        commit(awkward, Arrays.asList("plain", "1", "x"));
+
+        List<String> snapshotLines = Files.readAllLines(directory.resolve("shop.snapshot.tsv"), StandardCharsets.UTF_8);
+        assertEquals(snapshotLines.size(), 2, "one line per record whatever the values contain");
+
+        // Reading the values back unchanged means the same run has no differences
+        CatalogHistory.Diff again = commit(awkward, Arrays.asList("plain", "1", "x"));
+        assertFalse(again.hasChanges());
+        assertEquals(Files.readAllLines(directory.resolve("shop.snapshot.tsv"), StandardCharsets.UTF_8), snapshotLines);
+
+        CatalogHistory.Diff changed = commit(Arrays.asList("k\\ey", "tab\there\r\nand a new line", "back\\slash\\t"),
+                Arrays.asList("plain", "1", "x"));
+        assertEquals(changed.getChanged(), 1);
+        assertTrue(new String(Files.readAllBytes(changed.getReport()), StandardCharsets.UTF_8)
+                .contains("CHANGED,k\\ey,seller,back\\slash\\t literal,back\\slash\\t"));
+    }
+
+    @SafeVarargs
+    private final CatalogHistory.Diff commit(List<String>... records) throws IOException {
+        CatalogHistory.Snapshot snapshot = history.newSnapshot();
+        for (List<String> record : records) {
+            snapshot.add(record);
+        }
+        return history.commit(snapshot);
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".run.tmp")).count();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.veeva.utilities;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class LinkThrottleTest {
+
+    private static final String HOST = "cdn.example.com";
+    private static final long OPEN_MILLIS = 200;
+
+    private LinkThrottle throttle;
+
+    @BeforeMethod
+    public void setUp() {
+        // Plenty of tokens so no request waits; two failures open the circuit for OPEN_MILLIS
+        throttle = new LinkThrottle(1000, 1000, 0, 2, TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS));
+    }
+
+    @Test
+    public void halfOpenTrialSuccessClosesCircuit() throws InterruptedException {
+        openCircuit();
+        assertNull(throttle.acquire(HOST), "open circuit must skip requests");
+
+        LinkThrottle.Permit trial = awaitTrial();
+        assertNull(throttle.acquire(HOST), "only one trial may be in flight");
+        throttle.onResponse(trial, 200, -1);
+
+        LinkThrottle.Permit next = throttle.acquire(HOST);
+        assertNotNull(next, "successful trial must close the circuit");
+        assertFalse(next.isTrial());
+    }
+
+    @Test
+    public void halfOpenTrialFailureReopensCircuit() throws InterruptedException {
+        openCircuit();
+
+        LinkThrottle.Permit trial = awaitTrial();
+        throttle.onResponse(trial, 503, -1);
+        assertNull(throttle.acquire(HOST), "failed trial must reopen the circuit");
+
+        // A timed-out trial reopens it just the same
+        throttle.onFailure(awaitTrial());
+        assertNull(throttle.acquire(HOST));
+    }
+
+    @Test
+    public void requestsFromBeforeTheCircuitOpenedDoNotDecideIt() throws InterruptedException {
+        LinkThrottle.Permit lateSuccess = throttle.acquire(HOST);
+        LinkThrottle.Permit lateFailure = throttle.acquire(HOST);
+        openCircuit();
+
+        throttle.onResponse(lateSuccess, 200, -1);
+        assertNull(throttle.acquire(HOST), "a straggler's success must not close the circuit");
+
+        LinkThrottle.Permit trial = awaitTrial();
+        throttle.onResponse(lateFailure, 429, -1);
+        assertNull(throttle.acquire(HOST), "the trial is still in flight");
+        throttle.onResponse(trial, 200, -1);
+        assertNotNull(throttle.acquire(HOST), "only the trial's outcome closes the circuit");
+    }
+
+    @Test
+    public void releasedTrialLetsTheNextRequestTry() throws InterruptedException {
+        openCircuit();
+
+        throttle.release(awaitTrial());
+        LinkThrottle.Permit retry = throttle.acquire(HOST);
+        assertNotNull(retry);
+        assertTrue(retry.isTrial(), "a released trial must not close the circuit");
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() throws InterruptedException {
+        throttle.onResponse(throttle.acquire(HOST), 503, -1);
+        throttle.onResponse(throttle.acquire(HOST), 200, -1);
+        throttle.onResponse(throttle.acquire(HOST), 503, -1);
+        assertNotNull(throttle.acquire(HOST), "failures were not consecutive");
+    }
+
+    private void openCircuit() throws InterruptedException {
+        throttle.onResponse(throttle.acquire(HOST), 503, -1);
+        throttle.onResponse(throttle.acquire(HOST), 429, -1);
+    }
+
+    private LinkThrottle.Permit awaitTrial() throws InterruptedException {
+        Thread.sleep(OPEN_MILLIS + 50);
+        LinkThrottle.Permit trial = throttle.acquire(HOST);
+        assertNotNull(trial, "open period is over");
+        assertTrue(trial.isTrial());
+        return trial;
+    }
+}
@@ -0,0 +1,88 @@
+package org.veeva.utilities;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+public class RecordSinkTest {
+
+    private static final List<String> FIELDS = Arrays.asList("name", "price", "note");
+    private static final String NL = System.lineSeparator();
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("record-sink");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    public void csvQuotesOnlyValuesThatNeedIt() throws IOException {
+        Path file = directory.resolve("out").resolve("products.csv");
+        try (RecordSink sink = RecordSink.open(file, FIELDS)) {
+            assertEquals(sink.getFormat(), RecordSink.Format.CSV);
+            sink.write(Arrays.asList("Plain Tee", "$25.00", null));
+            sink.write(Arrays.asList("Cap, Blue", "$1,200.00", "say \"hi\""));
+            sink.write(Arrays.asList("Two\nLines", "$5", "carriage\rreturn"));
+            assertEquals(sink.getRecordCount(), 3);
+        }
+
+        assertEquals(read(file), "Plain Tee,$25.00," + NL
+                + "\"Cap, Blue\",\"$1,200.00\",\"say \"\"hi\"\"\"" + NL
+                + "\"Two\nLines\",$5,\"carriage\rreturn\"" + NL);
+    }
+
+    @Test
+    public void ndjsonEscapesStringsAndKeepsNulls() throws IOException {
+        Path file = directory.resolve("products.ndjson");
+        try (RecordSink sink = RecordSink.open(file, FIELDS)) {
+            assertEquals(sink.getFormat(), RecordSink.Format.NDJSON);
+            sink.write(Arrays.asList("Quote \" and \\ slash", "line\nbreak\ttab", null));
+            sink.write(Arrays.asList("bell\u0007", "", "é"));
+        }
+
+        assertEquals(read(file),
+                "{\"name\":\"Quote \\\" and \\\\ slash\",\"price\":\"line\\nbreak\\ttab\",\"note\":null}" + NL
+                + "{\"name\":\"bell\\u0007\",\"price\":\"\",\"note\":\"é\"}" + NL);
+    }
+
+    @Test
+    public void formatFollowsTheFileExtension() {
+        assertEquals(RecordSink.Format.fromFileName("a.JSONL"), RecordSink.Format.NDJSON);
+        assertEquals(RecordSink.Format.fromFileName("a.ndjson"), RecordSink.Format.NDJSON);
+        assertEquals(RecordSink.Format.fromFileName("a.txt"), RecordSink.Format.CSV);
+    }
+
+    @Test
+    public void wrongNumberOfValuesIsRejected() throws IOException {
+        try (RecordSink sink = RecordSink.open(directory.resolve("short.csv"), FIELDS)) {
+            expectThrows(IllegalArgumentException.class, () -> sink.write(Arrays.asList("only", "two")));
+        }
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * ProductDetails - One Product Card from the Shop Catalog
+ *
+ * Immutable record of the values shown on a product card: the product name,
+ * the list (MRP) price, the offer price when the product is discounted and the
+ * seller tag ("Most Popular in Jackets", "Almost Gone!", ...), plus the URL the
+ * card links to. Missing values are empty strings, never null.
+ *
+ * @author Sreekar Reddy
+ * @version 1.0
+ * @since 2024
+ */
+package org.veeva.core.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public final class ProductDetails {
+
+    // Field names of toRow(), e.g. the keys of NDJSON output
+    public static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList("name", "price", "sellerTag"));
+
+    // Field names of toHistoryRow(), keyed by the product URL for the catalog history
+    public static final List<String> HISTORY_FIELDS = Collections.unmodifiableList(Arrays.asList("url", "name", "price", "sellerTag"));
+
+    private final String name;
+    private final String mrpPrice;
+    private final String offerPrice;
+    private final String sellerTag;
+    private final String url;
+
+    public ProductDetails(String name, String mrpPrice, String offerPrice, String sellerTag) {
+        this(name, mrpPrice, offerPrice, sellerTag, "");
+    }
+
+    public ProductDetails(String name, String mrpPrice, String offerPrice, String sellerTag, String url) {
+        this.name = nullToEmpty(name);
+        this.mrpPrice = nullToEmpty(mrpPrice);
+        this.offerPrice = nullToEmpty(offerPrice);
+        this.sellerTag = nullToEmpty(sellerTag);
+        this.url = nullToEmpty(url);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMrpPrice() {
+        return mrpPrice;
+    }
+
+    public String getOfferPrice() {
+        return offerPrice;
+    }
+
+    public String getSellerTag() {
+        return sellerTag;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return Price the customer pays: the offer price if there is one, otherwise the MRP
+     */
+    public String getPrice() {
+        return !offerPrice.isEmpty() ? offerPrice : mrpPrice;
+    }
+
+    /**
+     * @return name, price, seller tag - the row format of the product text files
+     */
+    public List<String> toRow() {
+        return Arrays.asList(name, getPrice(), sellerTag);
+    }
+
+    /**
+     * @return url, name, price, seller tag - the catalog history record; the name
+     *         stands in for the URL of a card without a link
+     */
+    public List<String> toHistoryRow() {
+        return Arrays.asList(url.isEmpty() ? name : url, name, getPrice(), sellerTag);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ProductDetails)) {
+            return false;
+        }
+        ProductDetails that = (ProductDetails) other;
+        return name.equals(that.name) && mrpPrice.equals(that.mrpPrice)
+                && offerPrice.equals(that.offerPrice) && sellerTag.equals(that.sellerTag) && url.equals(that.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, mrpPrice, offerPrice, sellerTag, url);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductDetails{name='" + name + "', mrp='" + mrpPrice + "', offer='" + offerPrice
+                + "', seller='" + sellerTag + "', url='" + url + "'}";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
@@ -3,9 +3,9 @@ package org.veeva.core.pageObjects.CoreProduct;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.CacheLookup;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.veeva.utilities.AllureReportUtils;
 import org.veeva.utilities.BaseClass;
+import org.veeva.utilities.EventDrivenConditions;
 
 public class HomePage extends BaseClass {
 
@@ -45,13 +45,13 @@ public class HomePage extends BaseClass {
     }
 
     public void skipSIgnUp() {
-        wait.until(ExpectedConditions.visibilityOf(signupCloseBtn));
+        waitForOptionalField("signupCloseBtn", EventDrivenConditions.visibilityOf(signupCloseBtn));
         utils.clickIfVisible(signupCloseBtn);
     }
 
     public void acceptCookies(){
         try{
-            wait.until(ExpectedConditions.visibilityOf(cookieAcceptBtn));
+            waitForOptionalField("cookieAcceptBtn", EventDrivenConditions.visibilityOf(cookieAcceptBtn));
             utils.clickIfVisible(cookieAcceptBtn);
         }catch (Exception e){
             AllureReportUtils.attachTextToAllure("Info : ","Cookie Banner Not Found");
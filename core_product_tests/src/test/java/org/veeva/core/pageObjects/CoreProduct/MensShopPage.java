@@ -1,24 +1,55 @@
 package org.veeva.core.pageObjects.CoreProduct;
 
-import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.veeva.core.model.ProductDetails;
 import org.veeva.utilities.AllureReportUtils;
 import org.veeva.utilities.BaseClass;
+import org.veeva.utilities.CatalogHistory;
+import org.veeva.utilities.ConfigReader;
+import org.veeva.utilities.EventDrivenConditions;
+import org.veeva.utilities.PaginationCrawler;
+import org.veeva.utilities.RecordSink;
 
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import static org.veeva.utilities.Utilities.getElementXpathValue;
 
 
 public class MensShopPage  extends BaseClass {
 
-    private List<List<String>> collectedProductDeatils;
+    // Reads every product card on the page in one round-trip: the locators below are
+    // evaluated in the browser, relative XPaths against each product name link. The link's
+    // target without query or fragment identifies the product in the catalog history
+    private static final String EXTRACT_PRODUCTS_SCRIPT =
+            "function text(context, xpath) {"
+            + "  var node = document.evaluate('.' + xpath, context, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+            + "  return node ? (node.innerText || '').trim() : '';"
+            + "}"
+            + "var names = document.evaluate(arguments[0], document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "var rows = [];"
+            + "for (var i = 0; i < names.snapshotLength; i++) {"
+            + "  var name = names.snapshotItem(i);"
+            + "  rows.push([(name.innerText || '').trim(), text(name, arguments[1]), text(name, arguments[2]), text(name, arguments[3]),"
+            + "    name.href ? name.href.split(/[?#]/)[0] : '']);"
+            + "}"
+            + "return rows;";
+
+    // File the last extraction streamed its products to (moved when the data is saved)
+    private Path extractedProductsFile;
+
+    // Products of the last extraction by URL, recorded in the catalog history when saved
+    private CatalogHistory.Snapshot extractedCatalog;
 
     @FindBy(xpath = "//div[@class='product-card-title']/a")
     private List<WebElement> productNames;
@@ -64,9 +95,9 @@ public class MensShopPage  extends BaseClass {
 
 
     public void saveProductDetailsToFile(List<List<String>> products, String filePath) {
-        try (PrintWriter writer = new PrintWriter(filePath)) {
+        try (RecordSink sink = RecordSink.open(Paths.get(filePath), ProductDetails.FIELDS)) {
             for (List<String> product : products) {
-                writer.println(String.join(",", product));
+                sink.write(product);
             }
         } catch (Exception e) {
             throw new RuntimeException("Error writing to file: " + e.getMessage());
@@ -75,43 +106,156 @@ public class MensShopPage  extends BaseClass {
 
 
     public void saveProductDetailsToTextFileFromCurrentPage(String filename){
-        List<List<String>> productData = collectedProductDeatils;
+        if (extractedProductsFile == null) {
+            throw new IllegalStateException("No product details extracted yet - run getAllProductDetailsFromAllPages() first");
+        }
         filename = "src/test/resources/test_data/"+filename;
-        saveProductDetailsToFile(productData, filename);
+        try {
+            Path target = Paths.get(filename);
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            // The products are already on disk; saving only gives the file its final name
+            Files.move(extractedProductsFile, target, StandardCopyOption.REPLACE_EXISTING);
+            extractedProductsFile = target;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to file: " + e.getMessage());
+        }
         AllureReportUtils.attachFileToAllure("Data File", filename, "text/plain");
+        recordCatalogHistory(Paths.get(filename).getFileName().toString().replaceFirst("\\.[^.]+$", ""));
     }
 
-    public void getAllProductDetailsFromAllPages(){
-        List<List<String>> allProducts = new ArrayList<>();
+    /**
+     * Stores the extracted products as the latest run of a catalog and attaches
+     * what changed since the previous run (added, removed, price and seller tag changes)
+     *
+     * @param catalog Catalog name, e.g. "Jerseys Products"
+     */
+    public void recordCatalogHistory(String catalog){
+        if (extractedCatalog == null) {
+            return;
+        }
+        try {
+            CatalogHistory.Diff diff = CatalogHistory.forCatalog(catalog, ProductDetails.HISTORY_FIELDS).commit(extractedCatalog);
+            AllureReportUtils.attachTextToAllure("Catalog Changes", catalog + " - " + diff);
+            if (diff.hasChanges() || diff.getCollisions() > 0) {
+                AllureReportUtils.attachFileToAllure("Catalog Diff", diff.getReport().toString(), "text/csv");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing catalog history: " + e.getMessage());
+        }
+        extractedCatalog = null;
+    }
 
-        while (true) {
-            wait.until(ExpectedConditions.visibilityOfAllElements(productNames));
-
-            int count = productNames.size();
-            for (int i = 0; i < count; i++) {
-                String name = productNames.get(i).getText().trim();
-                int productIndex = i+1;
-                String ProductPriceMRPXPath = "("+getElementXpathValue(MensShopPage.class, "productNames")+")[" + productIndex + "]"+getElementXpathValue(MensShopPage.class, "productMRPPrices");
-                String ProductOfferPriceXPath = "("+getElementXpathValue(MensShopPage.class, "productNames")+")[" + productIndex + "]"+getElementXpathValue(MensShopPage.class, "productOfferPrices");
-                String productNamesXpath  = "(("+getElementXpathValue(MensShopPage.class, "productNames")+")[" + productIndex + "]"+getElementXpathValue(MensShopPage.class, "productSellerTags")+")[1]";
-                String sellerMessage = driver.findElements(By.xpath(productNamesXpath))
-                        .stream()
-                        .map(WebElement::getText)
-                        .filter(text -> !text.isEmpty())
-                        .reduce((a, b) -> a + "" + b)
-                        .orElse("");
-                String offerPrice = "";
-                try{
-                    offerPrice = driver.findElement(By.xpath(ProductOfferPriceXPath)).getText().trim();
-                }
-                catch (Exception e){
-                    //Offer Price Not available
+    /**
+     * @return File the last getAllProductDetailsFromAllPages() call wrote to, or null
+     */
+    public Path getExtractedProductsFile(){
+        return extractedProductsFile;
+    }
+
+    /**
+     * Extracts name, MRP, offer price, seller tag and link of every product card on
+     * the current page with a single executeScript call
+     *
+     * The card locators are the @FindBy XPaths of this page, so the values match
+     * the element-by-element lookup they replace.
+     *
+     * @return Products in page order
+     */
+    public List<ProductDetails> extractProductDetailsFromCurrentPage(){
+        List<?> rows = (List<?>) ((JavascriptExecutor) driver).executeScript(EXTRACT_PRODUCTS_SCRIPT,
+                getElementXpathValue(MensShopPage.class, "productNames"),
+                getElementXpathValue(MensShopPage.class, "productMRPPrices"),
+                getElementXpathValue(MensShopPage.class, "productOfferPrices"),
+                getElementXpathValue(MensShopPage.class, "productSellerTags"));
+        List<ProductDetails> products = new ArrayList<>();
+        for (Object row : rows) {
+            List<?> values = (List<?>) row;
+            products.add(new ProductDetails(String.valueOf(values.get(0)), String.valueOf(values.get(1)),
+                    String.valueOf(values.get(2)), String.valueOf(values.get(3)), String.valueOf(values.get(4))));
+        }
+        return products;
+    }
+
+    /**
+     * Collects the products of every listing page into a working file
+     *
+     * Products are streamed to target/extracted-products as each page is read
+     * (format from product.sink.format, csv or ndjson), so nothing accumulates in
+     * memory and an interrupted run leaves the pages read so far on disk.
+     * saveProductDetailsToTextFileFromCurrentPage() then moves the file into place.
+     */
+    public void getAllProductDetailsFromAllPages(){
+        String extension = "ndjson".equalsIgnoreCase(ConfigReader.getProperty("product.sink.format", "csv")) ? ".ndjson" : ".csv";
+        try {
+            Path directory = Files.createDirectories(Paths.get("target", "extracted-products"));
+            Path file = Files.createTempFile(directory, "products-", extension);
+            CatalogHistory.Snapshot catalog = CatalogHistory.isEnabled()
+                    ? CatalogHistory.forCatalog("products", ProductDetails.HISTORY_FIELDS).newSnapshot() : null;
+            try (RecordSink sink = RecordSink.open(file, ProductDetails.FIELDS)) {
+                extractAllProductDetailsTo(sink, catalog);
+            } catch (IOException | RuntimeException e) {
+                if (catalog != null) {
+                    catalog.close();
                 }
-                String mrpPrice = driver.findElement(By.xpath(ProductPriceMRPXPath)).getText().trim();
-                String price = !offerPrice.isEmpty() ? offerPrice : mrpPrice;
-                List<String> product = Arrays.asList(name, price, sellerMessage);
-                allProducts.add(product);
+                throw e;
             }
+            extractedProductsFile = file;
+            extractedCatalog = catalog;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the products of every listing page to a sink, page by page
+     *
+     * When the pagination uses page links, the remaining pages are loaded
+     * concurrently in background tabs (see PaginationCrawler); otherwise the
+     * pages are clicked through one by one. Products are written in page order;
+     * a product listed on more than one page (listing shifted while paging) is
+     * written once. The sink is flushed after every page.
+     *
+     * @param sink Open sink with ProductDetails.FIELDS
+     * @return Number of products written
+     * @throws IOException if the sink cannot be written
+     */
+    public long extractAllProductDetailsTo(RecordSink sink) throws IOException {
+        return extractAllProductDetailsTo(sink, null);
+    }
+
+    /**
+     * Streams the products of every listing page to a sink and, if given, a catalog snapshot
+     *
+     * @param sink Open sink with ProductDetails.FIELDS
+     * @param catalog Snapshot for the catalog history, or null
+     * @return Number of products written
+     * @throws IOException if the sink cannot be written
+     */
+    public long extractAllProductDetailsTo(RecordSink sink, CatalogHistory.Snapshot catalog) throws IOException {
+        long before = sink.getRecordCount();
+        // Product keys (URL, or name for a card without a link) seen in this crawl; a few
+        // strings per product, far smaller than the records themselves
+        Set<String> seen = new HashSet<>();
+
+        waitForField("productNames", EventDrivenConditions.visibilityOfAllElements(productNames));
+        if (PaginationCrawler.isEnabled()) {
+            PaginationCrawler crawler = new PaginationCrawler(driver);
+            List<String> pageUrls = crawler.discoverPageUrls(nextPageButton);
+            if (!pageUrls.isEmpty()) {
+                crawler.crawl(pageUrls, page -> {
+                    waitForField("productNames", EventDrivenConditions.visibilityOfAllElements(productNames));
+                    return extractProductDetailsFromCurrentPage();
+                }, products -> writePage(sink, catalog, products, seen));
+                return sink.getRecordCount() - before;
+            }
+        }
+
+        while (true) {
+            waitForField("productNames", EventDrivenConditions.visibilityOfAllElements(productNames));
+
+            writePage(sink, catalog, extractProductDetailsFromCurrentPage(), seen);
 
             // Check if the next page button is present and enabled
             try {
@@ -126,7 +270,25 @@ public class MensShopPage  extends BaseClass {
                 break; // Button not present or end of pagination
             }
         }
-        collectedProductDeatils =  allProducts;
+        return sink.getRecordCount() - before;
+    }
+
+    private void writePage(RecordSink sink, CatalogHistory.Snapshot catalog, List<ProductDetails> products,
+                           Set<String> seen) {
+        try {
+            for (ProductDetails product : products) {
+                // Same key as the catalog history record
+                if (seen.add(product.toHistoryRow().get(0))) {
+                    sink.write(product.toRow());
+                    if (catalog != null) {
+                        catalog.add(product.toHistoryRow());
+                    }
+                }
+            }
+            sink.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to file: " + e.getMessage());
+        }
     }
 
     public void selectProductFilter(WebElement element){
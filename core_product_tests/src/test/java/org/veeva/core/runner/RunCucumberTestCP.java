@@ -1,10 +1,8 @@
 package org.veeva.core.runner;
 
-import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
 import org.testng.annotations.DataProvider;
-import org.testng.annotations.Parameters;
-import org.testng.annotations.BeforeClass;
+import org.veeva.utilities.BaseCucumberRunner;
 
 @CucumberOptions(
         features = "src/test/resources/features",
@@ -19,14 +17,7 @@ import org.testng.annotations.BeforeClass;
         tags="@Default"
         // DO NOT specify 'tags' here
 )
-public class RunCucumberTestCP extends AbstractTestNGCucumberTests {
-        @BeforeClass(alwaysRun = true)
-        @Parameters({"browser","cucumber.filter.tags"})
-        public void setUpBrowser(String browser,String tags) {
-                // Set the browser as a system property so DriverFactory picks it up
-                System.setProperty("browser", browser);
-                System.setProperty("cucumber.filter.tags", tags);
-        }
+public class RunCucumberTestCP extends BaseCucumberRunner {
         @Override
         @DataProvider(parallel = true)
         public Object[][] scenarios(){
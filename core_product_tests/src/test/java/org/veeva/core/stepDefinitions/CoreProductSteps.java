@@ -5,7 +5,6 @@ import io.cucumber.java.Before;
 import io.cucumber.java.en.*;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import org.veeva.core.pageObjects.CoreProduct.HomePage;
@@ -48,6 +47,7 @@ public class CoreProductSteps {
     @Given("I navigate to {string}")
     public void i_navigate_to(String url) {
         driver.get(ConfigReader.getProperty(url));
+        utils.waitForPageReady();
 
     }
     @Then("I skip signup")
@@ -70,11 +70,11 @@ public class CoreProductSteps {
         RetryHandler.executeWithRetry(() -> {
             Page = pageObjectMap.get(pageName);
             WebElement element = elementFetcher.getElementByFieldName(Page,elementName);
-            wait.until(ExpectedConditions.visibilityOf(element));
+            wait.until(EventDrivenConditions.visibilityOf(element));
             utils.hoverToElement(element);
             WebElement clickElement = elementFetcher.getElementByFieldName(Page,clickElementName);
-            wait.until(ExpectedConditions.visibilityOf(clickElement));
-            utils.hoverToElement(element);
+            wait.until(EventDrivenConditions.visibilityOf(clickElement));
+            utils.hoverToElement(element, clickElement);
             utils.clickIfVisible(clickElement);
         });
     }
@@ -102,7 +102,7 @@ public class CoreProductSteps {
     public void i_count_the_instances_of(String elementName, String pageName) {
         Page = pageObjectMap.get(pageName);
         List<WebElement> elements = elementFetcher.getElementByFieldName(Page,elementName);
-        wait.until(ExpectedConditions.visibilityOfAllElements(elements));
+        wait.until(EventDrivenConditions.visibilityOfAllElements(elements));
         elementCount = utils.getCountOfElements(elements);
     }
 
@@ -136,7 +136,7 @@ public class CoreProductSteps {
         try {
             Page = pageObjectMap.get(pageName);
             WebElement element = elementFetcher.getElementByFieldName(Page, elementName);
-            wait.until(ExpectedConditions.visibilityOf(element));
+            wait.until(EventDrivenConditions.visibilityOf(element));
         }catch (Exception e){
             AllureReportUtils.attachTextToAllure("Banner Status : " , "Not Found");
 
@@ -1,6 +1,6 @@
 Feature: validation for CP website
 
-  @CoreTests @Sanity
+  @CoreTests @Sanity @AllowAds
   Scenario: Capture all Men's Jackets with Price, Title, and Top Seller message from all pages
     Given I navigate to "CP_Home_Page"
     Then I skip signup
@@ -15,7 +15,7 @@ Feature: validation for CP website
 
 
 
-  @CoreTests @Sanity
+  @CoreTests @Sanity @AllowAds @AllowVideo
   Scenario: Validation of the Video Feeds
     Given I navigate to "CP_Home_Page"
     And I accept cookies
@@ -1,10 +1,8 @@
 package org.veeva.runner;
 
-import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
 import org.testng.annotations.DataProvider;
-import org.testng.annotations.Parameters;
-import org.testng.annotations.BeforeClass;
+import org.veeva.utilities.BaseCucumberRunner;
 
 @CucumberOptions(
         features = "src/test/resources/features",
@@ -17,14 +15,7 @@ import org.testng.annotations.BeforeClass;
         monochrome = true,
         tags="@Default"
 )
-public class RunCucumberTestDP1 extends AbstractTestNGCucumberTests {
-        @BeforeClass(alwaysRun = true)
-        @Parameters({"browser","cucumber.filter.tags"})
-        public void setUpBrowser(String browser,String tags) {
-                // Set the browser as a system property so DriverFactory picks it up
-                System.setProperty("browser", browser);
-                System.setProperty("cucumber.filter.tags", tags);
-        }
+public class RunCucumberTestDP1 extends BaseCucumberRunner {
         @Override
         @DataProvider(parallel = true)
         public Object[][] scenarios(){
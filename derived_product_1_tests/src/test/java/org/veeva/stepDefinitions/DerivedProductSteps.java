@@ -3,7 +3,6 @@ package org.veeva.stepDefinitions;
 import io.cucumber.java.en.*;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.veeva.pageObjects.Pages.HomePage;
 import org.veeva.utilities.*;
@@ -40,6 +39,7 @@ public class DerivedProductSteps {
     @Given("I navigate to {string}")
     public void i_navigate_to(String url) {
         driver.get(ConfigReader.getProperty(url));
+        utils.waitForPageReady();
 
     }
     @Then("I accept cookies")
@@ -53,11 +53,11 @@ public class DerivedProductSteps {
         RetryHandler.executeWithRetry(() -> {
             Page = pageObjectMap.get(pageName);
             WebElement element = elementFetcher.getElementByFieldName(Page,elementName);
-            wait.until(ExpectedConditions.visibilityOf(element));
+            wait.until(EventDrivenConditions.visibilityOf(element));
             utils.hoverToElement(element);
             WebElement clickElement = elementFetcher.getElementByFieldName(Page,clickElementName);
-            wait.until(ExpectedConditions.elementToBeClickable(clickElement));
-            utils.hoverToElement(element);
+            wait.until(EventDrivenConditions.elementToBeClickable(clickElement));
+            utils.hoverToElement(element, clickElement);
             utils.clickIfVisible(clickElement);
         });
     }
@@ -81,7 +81,7 @@ public class DerivedProductSteps {
     public void i_count_the_instances_of(String elementName, String pageName) {
         Page = pageObjectMap.get(pageName);
         List<WebElement> elements = elementFetcher.getElementByFieldName(Page,elementName);
-        wait.until(ExpectedConditions.visibilityOfAllElements(elements));
+        wait.until(EventDrivenConditions.visibilityOfAllElements(elements));
         elementCount = utils.getCountOfElements(elements);
     }
 
@@ -116,9 +116,11 @@ public class DerivedProductSteps {
     public void validate_slide_duration(String seconds){
         Map<String, Long> slideDurations = homePage.trackSlideDurations();
         for (Map.Entry<String, Long> slide : slideDurations.entrySet()) {
-            Assert.assertEquals(slide.getValue().intValue(), Integer.parseInt(seconds), "Duration mismatch for slide: " + slide.getKey());
+            // Durations are in milliseconds; whole seconds truncated, as the expected values assume
+            int actualSeconds = (int) (slide.getValue() / 1000);
+            Assert.assertEquals(actualSeconds, Integer.parseInt(seconds), "Duration mismatch for slide: " + slide.getKey());
             AllureReportUtils.attachTextToAllure("Slide Title",slide.getKey());
-            AllureReportUtils.attachTextToAllure("Actual Slide Duration",String.valueOf(slide.getValue().intValue()));
+            AllureReportUtils.attachTextToAllure("Actual Slide Duration",slide.getValue() + " ms");
         }
     }
 
@@ -1,6 +1,6 @@
 Feature: validation for DP1 website
 
-  @DP1_test @Sanity
+  @DP1_test @Sanity @VirtualTime
   Scenario: Validation of the Slides from the Home Page
     Given I navigate to "DP1_Home_Page"
 #    And I accept cookies
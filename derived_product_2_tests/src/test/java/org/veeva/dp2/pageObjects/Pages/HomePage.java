@@ -2,21 +2,21 @@ package org.veeva.dp2.pageObjects.Pages;
 
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.testng.Assert;
 import org.veeva.utilities.AllureReportUtils;
 import org.veeva.utilities.BaseClass;
-import org.veeva.utilities.LinkValidationUtil;
+import org.veeva.utilities.CarouselTimingRecorder;
+import org.veeva.utilities.EventDrivenConditions;
+import org.veeva.utilities.LinkCheckCache;
+import org.veeva.utilities.LinkPipeline;
+import org.veeva.utilities.LinkThrottle;
+import org.veeva.utilities.RecordSink;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.time.Instant;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
-import static org.veeva.utilities.Utilities.getElementXpathValue;
-
 public class HomePage extends BaseClass {
 
     @FindBy(xpath = "//button[text()='I Accept']")
@@ -34,6 +34,9 @@ public class HomePage extends BaseClass {
     @FindBy(xpath = "/following-sibling::ul//a")
     private List<WebElement> footerLinks;
 
+    // Footer links captured (and validated) by getFooterCategoryLinks in this scenario
+    private LinkPipeline.Report footerLinkReport;
+
     public HomePage(WebDriver driver) {
         super(driver);
     }
@@ -44,7 +47,7 @@ public class HomePage extends BaseClass {
 
     public void acceptCookies() {
         try {
-            wait.until(ExpectedConditions.visibilityOf(cookieAcceptBtn));
+            waitForOptionalField("cookieAcceptBtn", EventDrivenConditions.visibilityOf(cookieAcceptBtn));
             utils.clickIfVisible(cookieAcceptBtn);
         } catch (Exception e) {
             AllureReportUtils.attachTextToAllure("Info : ","Cookie Banner Not Found");
@@ -56,175 +59,101 @@ public class HomePage extends BaseClass {
         return slidesTitles;
     }
 
+    /**
+     * Records one full carousel cycle in the browser
+     *
+     * @return Display time of each slide in milliseconds, keyed by slide title
+     */
     public Map<String, Long> trackSlideDurations() {
-        Map<String, Long> slideDurations = new LinkedHashMap<>();
-
-        for (int run = 0; run < 2; run++) {
-            int currentIndex = -1;
-            Instant startTime = null;
-            long[] durations = new long[slides.size()];
-
-            while (true) {
-                boolean activeFound = false;
-                for (int i = 0; i < slides.size(); i++) {
-                    if ("true".equals(slides.get(i).getAttribute("aria-selected"))) {
-                        activeFound = true;
-                        if (currentIndex != i) {
-                            if (currentIndex != -1 && startTime != null && run == 1) {
-                                long seconds = (Instant.now().toEpochMilli() - startTime.toEpochMilli()) / 1000;
-                                durations[currentIndex] += seconds;
-                            }
-                            currentIndex = i;
-                            startTime = Instant.now();
-                        }
-                        break;
-                    }
-                }
-
-                if (!activeFound) break;
-
-                try {
-                    Thread.sleep(1);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-
-                // Exit if all durations are non-zero in second run
-                if (run == 1 && Arrays.stream(durations).noneMatch(d -> d == 0)) break;
-            }
-
-            // Capture last slide timing
-            if (run == 1 && currentIndex != -1 && startTime != null) {
-                long seconds = (Instant.now().toEpochMilli() - startTime.toEpochMilli()) / 1000;
-                durations[currentIndex] += seconds;
-            }
-
-            if (run == 1) {
-                for (int i = 0; i < slides.size(); i++) {
-                    String title;
-                    try {
-                        title = slidesTitles.get(i).getText().trim();
-                        if (title.isEmpty()) title = "Slide " + (i + 1);
-                    } catch (Exception e) {
-                        title = "Slide " + (i + 1);
-                    }
-                    slideDurations.put(title, durations[i]);
-                }
-            }
-        }
-
-        return slideDurations;
+        return new CarouselTimingRecorder(driver).measureSlideDurations(slides, slidesTitles);
     }
 
+    /**
+     * Extracts the footer links and validates them while extracting
+     *
+     * The footer is read in one round-trip (Utilities.harvestLinks) and every
+     * link goes through a LinkPipeline: duplicates are detected, each
+     * distinct URL is checked once (starting right away) and the links are
+     * written to the given CSV file for reference.
+     *
+     * @param filename CSV side output in src/test/resources/test_data
+     * @throws IOException if the CSV file cannot be written
+     */
     public void getFooterCategoryLinks(String filename) throws IOException {
-        filename = "src/test/resources/test_data/"+filename;
-        FileWriter csvWriter = new FileWriter(filename);
-        csvWriter.append("Category,Link Text,Href\n");
-        wait.until(ExpectedConditions.visibilityOfAllElements(footerLinkCategories));
-        int Categorycount = footerLinkCategories.size();
-        for (int i = 0; i < Categorycount; i++) {
-            String categoryName = footerLinkCategories.get(i).getText().trim();
-            int linkIndex = i+1;
-            String linkXpath = "("+getElementXpathValue(HomePage.class, "footerLinkCategories")+")[" + linkIndex + "]"+getElementXpathValue(HomePage.class, "footerLinks");
-            List<WebElement> links = driver.findElements(By.xpath(linkXpath));
-            for (WebElement link:links){
-                String linktext = link.getText().trim();
-                String href = link.getAttribute("href");
-                csvWriter.append(categoryName).append(",").append(linktext).append(",").append(href).append("\n");
+        Path csvFile = Paths.get("src/test/resources/test_data", filename);
+        try (LinkPipeline pipeline = new LinkPipeline(RecordSink.open(csvFile, RecordSink.Format.CSV, LinkPipeline.CSV_HEADER))) {
+            waitForField("footerLinkCategories", EventDrivenConditions.visibilityOfAllElements(footerLinkCategories));
+            // Whole footer tree in one script call, from the same locators as the fields below
+            Map<String, List<Map.Entry<String, String>>> footer = utils.harvestLinks(HomePage.class, "footerLinkCategories", "footerLinks");
+            for (Map.Entry<String, List<Map.Entry<String, String>>> category : footer.entrySet()) {
+                for (Map.Entry<String, String> link : category.getValue()) {
+                    pipeline.submit(category.getKey(), link.getKey(), link.getValue());
+                }
             }
+            footerLinkReport = pipeline.finish();
         }
-        csvWriter.flush(); // ✅ Ensure everything is written
-        csvWriter.close(); // ✅ Close writer to release resources
-        AllureReportUtils.attachFileToAllure("Data File", filename, "text/csv");
+        AllureReportUtils.attachFileToAllure("Data File", csvFile.toString(), "text/csv");
     }
 
-    public void validateLinksFromCSV(String filename) throws IOException {
-        filename = "src/test/resources/test_data/"+filename;
-        String line;
-        String csvSplitBy = ",";
-        int brokenLinks = 0;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-
-            // Skip header
-            br.readLine();
-
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(csvSplitBy, -1); // Include empty values
-
-                if (values.length < 3) continue;
-
-                String category = values[0].trim();
-                String linkText = values[1].trim();
-                String linkUri = values[2].trim();
-
-                if (!linkUri.isEmpty()) {
-                    boolean isWorking = LinkValidationUtil.isUrlWorking(linkUri);
-
-                    if (!isWorking) {
-                        brokenLinks += 1;
-                        // Capture broken link data
-                        AllureReportUtils.attachTextToAllure("Broken Link Found:","");
-                        AllureReportUtils.attachTextToAllure("Category",category);
-                        AllureReportUtils.attachTextToAllure("LinkText",linkText);
-                        AllureReportUtils.attachTextToAllure("LinkURI",linkUri);
-                        AllureReportUtils.attachTextToAllure("--------------------------------","---------------------------------");
-                    }
-                }
-            }
+    /**
+     * Asserts that none of the captured footer links is broken
+     *
+     * @param filename CSV written by {@link #getFooterCategoryLinks(String)} (kept for the step wording)
+     */
+    public void validateLinksFromCSV(String filename) {
+        LinkPipeline.Report report = requireFooterLinkReport(filename);
+        if (LinkCheckCache.isEnabled()) {
+            AllureReportUtils.attachTextToAllure("Link Cache", LinkCheckCache.getInstance().getSummary());
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        for (LinkPipeline.Link link : report.getUnverifiedLinks()) {
+            // Host throttled us or its circuit is open: the link's state is unknown, not broken
+            AllureReportUtils.attachTextToAllure("Unverified Link (" + link.getResult().getOutcome() + ")",
+                    link.getCategory() + " | " + link.getText() + " | " + link.getHref() + " | " + link.getResult());
+        }
+        List<LinkPipeline.Link> brokenLinks = report.getBrokenLinks();
+        for (LinkPipeline.Link link : brokenLinks) {
+            // Capture broken link data
+            AllureReportUtils.attachTextToAllure("Broken Link Found:","");
+            AllureReportUtils.attachTextToAllure("Category",link.getCategory());
+            AllureReportUtils.attachTextToAllure("LinkText",link.getText());
+            AllureReportUtils.attachTextToAllure("LinkURI",link.getHref());
+            AllureReportUtils.attachTextToAllure("Check Result",link.getResult().toString());
+            AllureReportUtils.attachTextToAllure("--------------------------------","---------------------------------");
+        }
+        if (LinkThrottle.isEnabled() && !LinkThrottle.getInstance().getSummary().isEmpty()) {
+            AllureReportUtils.attachTextToAllure("Throttled Hosts", LinkThrottle.getInstance().getSummary());
         }
-        Assert.assertEquals(brokenLinks,0,"Broken Link Found");
+        Assert.assertEquals(brokenLinks.size(),0,"Broken Link Found");
     }
 
+    /**
+     * Asserts that no footer link URL appears more than once
+     *
+     * @param filename CSV written by {@link #getFooterCategoryLinks(String)} (kept for the step wording)
+     */
     public void duplicateLinkChecker(String filename){
-        filename = "src/test/resources/test_data/"+filename;
-        String line;
-        String csvSplitBy = ",";
-        int duplicateLinksCount = 0;
-
-        // Map to track LinkURI and corresponding rows
-        Map<String, List<String[]>> linkMap = new HashMap<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+        Map<String, List<LinkPipeline.Link>> duplicates = requireFooterLinkReport(filename).getDuplicates();
 
-            // Read header
-            String header = br.readLine();
-
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(csvSplitBy, -1);
-                if (values.length < 3) continue;
-
-                String linkURI = values[2].trim();
-
-                // Group rows by LinkURI
-                linkMap.computeIfAbsent(linkURI, k -> new ArrayList<>()).add(values);
-            }
-
-            boolean foundDuplicate = false;
-            for (Map.Entry<String, List<String[]>> entry : linkMap.entrySet()) {
-                if (entry.getValue().size() > 1) {
-                    duplicateLinksCount +=1;
-                    foundDuplicate = true;
-                    AllureReportUtils.attachTextToAllure("Duplicate LinkURI found: ",entry.getKey());
-                    for (String[] row : entry.getValue()) {
-                        AllureReportUtils.attachTextToAllure("Category: " + row[0] + ", LinkText: " + row[1],", LinkURI: " + row[2]);
-                    }
-                    AllureReportUtils.attachTextToAllure("--------------------------------","---------------------------------");
-                }
+        for (Map.Entry<String, List<LinkPipeline.Link>> entry : duplicates.entrySet()) {
+            AllureReportUtils.attachTextToAllure("Duplicate LinkURI found: ",entry.getKey());
+            for (LinkPipeline.Link link : entry.getValue()) {
+                AllureReportUtils.attachTextToAllure("Category: " + link.getCategory() + ", LinkText: " + link.getText(),", LinkURI: " + link.getHref());
             }
+            AllureReportUtils.attachTextToAllure("--------------------------------","---------------------------------");
+        }
 
-            if (!foundDuplicate) {
-                AllureReportUtils.attachTextToAllure("Duplicate Links : ","Not Found");
-            }
+        if (duplicates.isEmpty()) {
+            AllureReportUtils.attachTextToAllure("Duplicate Links : ","Not Found");
+        }
+        Assert.assertEquals(duplicates.size(),0,"Duplicate Links Found");
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    private LinkPipeline.Report requireFooterLinkReport(String filename) {
+        if (footerLinkReport == null) {
+            throw new IllegalStateException("Footer links have not been captured to " + filename + " in this scenario");
         }
-        Assert.assertEquals(duplicateLinksCount,0,"Duplicate Links Found");
+        return footerLinkReport;
     }
 
 }
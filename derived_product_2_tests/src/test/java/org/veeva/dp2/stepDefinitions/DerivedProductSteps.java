@@ -3,7 +3,6 @@ package org.veeva.dp2.stepDefinitions;
 import io.cucumber.java.en.*;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.veeva.dp2.pageObjects.Pages.HomePage;
 import org.veeva.utilities.*;
@@ -41,6 +40,7 @@ public class DerivedProductSteps {
     @Given("I navigate to {string}")
     public void i_navigate_to(String url) {
         driver.get(ConfigReader.getProperty(url));
+        utils.waitForPageReady();
 
     }
     @Then("I accept cookies")
@@ -54,11 +54,11 @@ public class DerivedProductSteps {
         RetryHandler.executeWithRetry(() -> {
             Page = pageObjectMap.get(pageName);
             WebElement element = elementFetcher.getElementByFieldName(Page,elementName);
-            wait.until(ExpectedConditions.visibilityOf(element));
+            wait.until(EventDrivenConditions.visibilityOf(element));
             utils.hoverToElement(element);
             WebElement clickElement = elementFetcher.getElementByFieldName(Page,clickElementName);
-            wait.until(ExpectedConditions.elementToBeClickable(clickElement));
-            utils.hoverToElement(element);
+            wait.until(EventDrivenConditions.elementToBeClickable(clickElement));
+            utils.hoverToElement(element, clickElement);
             utils.clickIfVisible(clickElement);
         });
     }
@@ -82,7 +82,7 @@ public class DerivedProductSteps {
     public void i_count_the_instances_of(String elementName, String pageName) {
         Page = pageObjectMap.get(pageName);
         List<WebElement> elements = elementFetcher.getElementByFieldName(Page,elementName);
-        wait.until(ExpectedConditions.visibilityOfAllElements(elements));
+        wait.until(EventDrivenConditions.visibilityOfAllElements(elements));
         elementCount = utils.getCountOfElements(elements);
     }
 
@@ -117,9 +117,11 @@ public class DerivedProductSteps {
     public void validate_slide_duration(String seconds){
         Map<String, Long> slideDurations = homePage.trackSlideDurations();
         for (Map.Entry<String, Long> slide : slideDurations.entrySet()) {
-            Assert.assertEquals(slide.getValue().intValue(), Integer.parseInt(seconds), "Duration mismatch for slide: " + slide.getKey());
+            // Durations are in milliseconds; whole seconds truncated, as the expected values assume
+            int actualSeconds = (int) (slide.getValue() / 1000);
+            Assert.assertEquals(actualSeconds, Integer.parseInt(seconds), "Duration mismatch for slide: " + slide.getKey());
             AllureReportUtils.attachTextToAllure("Slide Title",slide.getKey());
-            AllureReportUtils.attachTextToAllure("Actual Slide Duration",String.valueOf(slide.getValue().intValue()));
+            AllureReportUtils.attachTextToAllure("Actual Slide Duration",slide.getValue() + " ms");
         }
     }
 
@@ -133,7 +135,7 @@ public class DerivedProductSteps {
     }
 
     @Then("validate all the links from file {string} are working")
-    public void validate_all_the_links_from_file_are_working(String filename) throws IOException {
+    public void validate_all_the_links_from_file_are_working(String filename) {
         homePage.validateLinksFromCSV(filename);
     }
     @Then("Validate No duplicate links are present in the {string}")
@@ -1,6 +1,6 @@
 Feature: validation for DP2 website
 
-  @DP2_test @Sanity
+  @DP2_test @Sanity @VirtualTime
   Scenario: Validation of the Slides from the Home Page
     Given I navigate to "DP2_Home_Page"
     And I accept cookies